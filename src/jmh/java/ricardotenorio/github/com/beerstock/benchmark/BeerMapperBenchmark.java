@@ -0,0 +1,48 @@
+package ricardotenorio.github.com.beerstock.benchmark;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+import ricardotenorio.github.com.beerstock.dto.BeerDTO;
+import ricardotenorio.github.com.beerstock.entity.Beer;
+import ricardotenorio.github.com.beerstock.mapper.BeerMapper;
+
+import java.util.concurrent.TimeUnit;
+
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class BeerMapperBenchmark {
+
+  private final BeerMapper beerMapper = BeerMapper.INSTANCE;
+
+  private Beer beer;
+  private BeerDTO beerDTO;
+
+  @Setup
+  public void setup() {
+    beerDTO = BenchmarkContexts.beerDTOs(1).get(0);
+    beer = beerMapper.toModel(beerDTO);
+  }
+
+  @Benchmark
+  public BeerDTO toDTO() {
+    return beerMapper.toDTO(beer);
+  }
+
+  @Benchmark
+  public Beer toModel() {
+    return beerMapper.toModel(beerDTO);
+  }
+
+}
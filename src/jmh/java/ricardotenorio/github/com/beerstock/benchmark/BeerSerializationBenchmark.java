@@ -0,0 +1,79 @@
+package ricardotenorio.github.com.beerstock.benchmark;
+
+import com.fasterxml.jackson.core.JsonProcessingException;
+import com.fasterxml.jackson.core.type.TypeReference;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.databind.SerializationFeature;
+import com.fasterxml.jackson.dataformat.smile.SmileFactory;
+import com.fasterxml.jackson.dataformat.smile.SmileGenerator;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+import ricardotenorio.github.com.beerstock.dto.BeerDTO;
+
+import java.io.IOException;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * JSON against the Smile representation served to clients that accept it.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class BeerSerializationBenchmark {
+
+  @Param({"10", "1000", "10000"})
+  private int catalogSize;
+
+  private static final TypeReference<List<BeerDTO>> BEER_LIST = new TypeReference<List<BeerDTO>>() {
+  };
+
+  private final ObjectMapper objectMapper = new ObjectMapper();
+  private final ObjectMapper smileObjectMapper = new ObjectMapper(
+      new SmileFactory().enable(SmileGenerator.Feature.CHECK_SHARED_STRING_VALUES))
+      .enable(SerializationFeature.WRITE_ENUMS_USING_INDEX);
+
+  private List<BeerDTO> beerDTOs;
+  private byte[] json;
+  private byte[] smile;
+
+  @Setup
+  public void setup() throws JsonProcessingException {
+    beerDTOs = BenchmarkContexts.beerDTOs(catalogSize);
+    json = objectMapper.writeValueAsBytes(beerDTOs);
+    smile = smileObjectMapper.writeValueAsBytes(beerDTOs);
+  }
+
+  @Benchmark
+  public byte[] serializeList() throws JsonProcessingException {
+    return objectMapper.writeValueAsBytes(beerDTOs);
+  }
+
+  @Benchmark
+  public byte[] serializeListSmile() throws JsonProcessingException {
+    return smileObjectMapper.writeValueAsBytes(beerDTOs);
+  }
+
+  @Benchmark
+  public List<BeerDTO> deserializeList() throws IOException {
+    return objectMapper.readValue(json, BEER_LIST);
+  }
+
+  @Benchmark
+  public List<BeerDTO> deserializeListSmile() throws IOException {
+    return smileObjectMapper.readValue(smile, BEER_LIST);
+  }
+
+}
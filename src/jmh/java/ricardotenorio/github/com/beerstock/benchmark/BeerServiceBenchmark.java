@@ -0,0 +1,67 @@
+package ricardotenorio.github.com.beerstock.benchmark;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+import org.springframework.context.ConfigurableApplicationContext;
+import ricardotenorio.github.com.beerstock.dto.BeerDTO;
+import ricardotenorio.github.com.beerstock.exception.BeerNotFoundException;
+import ricardotenorio.github.com.beerstock.repository.BeerRepository;
+import ricardotenorio.github.com.beerstock.service.BeerService;
+
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Read paths of {@link BeerService} against an embedded H2 catalog of
+ * {@code catalogSize} beers.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+public class BeerServiceBenchmark {
+
+  @Param({"100", "1000", "10000"})
+  private int catalogSize;
+
+  private ConfigurableApplicationContext context;
+  private BeerService beerService;
+  private String hotName;
+
+  @Setup(Level.Trial)
+  public void setup() {
+    context = BenchmarkContexts.start();
+    beerService = context.getBean(BeerService.class);
+    context.getBean(BeerRepository.class).saveAll(BenchmarkContexts.beers(catalogSize, 500, 250));
+    hotName = "Beer " + (catalogSize / 2);
+  }
+
+  @TearDown(Level.Trial)
+  public void tearDown() {
+    context.close();
+  }
+
+  @Benchmark
+  public BeerDTO findByName() throws BeerNotFoundException {
+    return beerService.findByName(hotName);
+  }
+
+  @Benchmark
+  public List<BeerDTO> listAll() {
+    return beerService.listAll();
+  }
+
+}
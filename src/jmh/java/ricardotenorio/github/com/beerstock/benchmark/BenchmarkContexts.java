@@ -0,0 +1,72 @@
+package ricardotenorio.github.com.beerstock.benchmark;
+
+import org.springframework.boot.builder.SpringApplicationBuilder;
+import org.springframework.context.ConfigurableApplicationContext;
+import ricardotenorio.github.com.beerstock.BeerstockApplication;
+import ricardotenorio.github.com.beerstock.dto.BeerDTO;
+import ricardotenorio.github.com.beerstock.entity.Beer;
+import ricardotenorio.github.com.beerstock.enums.BeerType;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.UUID;
+
+final class BenchmarkContexts {
+
+  private BenchmarkContexts() {
+  }
+
+  /**
+   * Starts the application against its own in-memory H2 database, so every
+   * benchmark trial begins from an empty catalog.
+   */
+  static ConfigurableApplicationContext start(String... properties) {
+    return new SpringApplicationBuilder(BeerstockApplication.class)
+        .logStartupInfo(false)
+        .properties(
+            "server.port=0",
+            "spring.datasource.url=jdbc:h2:mem:" + UUID.randomUUID() + ";DB_CLOSE_DELAY=-1",
+            "spring.devtools.restart.enabled=false",
+            "logging.level.root=WARN")
+        .properties(properties)
+        .run();
+  }
+
+  static List<Beer> beers(int count, int max, int quantity) {
+    BeerType[] types = BeerType.values();
+    List<Beer> beers = new ArrayList<>(count);
+
+    for (int i = 0; i < count; i++) {
+      Beer beer = new Beer();
+      beer.setName("Beer " + i);
+      beer.setBrand("Brand " + (i % 50));
+      beer.setMax(max);
+      beer.setQuantity(quantity);
+      beer.setType(types[i % types.length]);
+      beers.add(beer);
+    }
+
+    return beers;
+  }
+
+  static List<BeerDTO> beerDTOs(int count) {
+    BeerType[] types = BeerType.values();
+    List<BeerDTO> beerDTOs = new ArrayList<>(count);
+
+    for (int i = 0; i < count; i++) {
+      beerDTOs.add(BeerDTO.builder()
+          .id((long) i + 1)
+          .name("Beer " + i)
+          .brand("Brand " + (i % 50))
+          .max(500)
+          .quantity(250)
+          .type(types[i % types.length])
+          .reorderLevel(25)
+          .version(0L)
+          .build());
+    }
+
+    return beerDTOs;
+  }
+
+}
@@ -0,0 +1,115 @@
+package ricardotenorio.github.com.beerstock.benchmark;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Group;
+import org.openjdk.jmh.annotations.GroupThreads;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Threads;
+import org.openjdk.jmh.annotations.Warmup;
+import org.springframework.context.ConfigurableApplicationContext;
+import ricardotenorio.github.com.beerstock.entity.Beer;
+import ricardotenorio.github.com.beerstock.repository.BeerRepository;
+
+import java.io.IOException;
+import java.net.URI;
+import java.net.http.HttpClient;
+import java.net.http.HttpRequest;
+import java.net.http.HttpResponse;
+import java.util.List;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Load test of the HTTP API under each {@code beerstock.execution.mode}, with
+ * many more concurrent clients than database connections. Runs on the same
+ * machine give throughput per core directly; divide by the cores in use to
+ * compare machines.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 3, time = 5)
+@Measurement(iterations = 5, time = 5)
+@Fork(1)
+public class ExecutionModeBenchmark {
+
+  private static final int CATALOG_SIZE = 1000;
+  private static final int MAX = 100_000_000;
+  private static final String QUANTITY_BODY = "{\"quantity\":1}";
+
+  @Param({"platform", "bounded"})
+  private String mode;
+
+  private ConfigurableApplicationContext context;
+  private HttpClient httpClient;
+  private String baseUrl;
+  private long[] beerIds;
+
+  @Setup(Level.Trial)
+  public void setup() {
+    context = BenchmarkContexts.start(
+        "beerstock.execution.mode=" + mode,
+        "beerstock.rate-limit.enabled=false");
+    httpClient = HttpClient.newHttpClient();
+    baseUrl = "http://localhost:" + context.getEnvironment().getProperty("local.server.port") + "/api/v1/beers";
+
+    List<Beer> beers = context.getBean(BeerRepository.class)
+        .saveAll(BenchmarkContexts.beers(CATALOG_SIZE, MAX, MAX / 2));
+    beerIds = beers.stream().mapToLong(Beer::getId).toArray();
+  }
+
+  @TearDown(Level.Trial)
+  public void tearDown() {
+    context.close();
+  }
+
+  @Benchmark
+  @Threads(64)
+  public int search() throws IOException, InterruptedException {
+    return send(HttpRequest.newBuilder(URI.create(baseUrl + "/search?type=LAGER&size=20")).GET());
+  }
+
+  @Benchmark
+  @Group("stock")
+  @GroupThreads(32)
+  public int increment() throws IOException, InterruptedException {
+    return send(patch("/increment"));
+  }
+
+  @Benchmark
+  @Group("stock")
+  @GroupThreads(32)
+  public int decrement() throws IOException, InterruptedException {
+    return send(patch("/decrement"));
+  }
+
+  private HttpRequest.Builder patch(String operation) {
+    long id = beerIds[ThreadLocalRandom.current().nextInt(beerIds.length)];
+
+    return HttpRequest.newBuilder(URI.create(baseUrl + "/" + id + operation))
+        .header("Content-Type", "application/json")
+        .method("PATCH", HttpRequest.BodyPublishers.ofString(QUANTITY_BODY));
+  }
+
+  private int send(HttpRequest.Builder request) throws IOException, InterruptedException {
+    int status = httpClient.send(request.build(), HttpResponse.BodyHandlers.discarding()).statusCode();
+
+    // an error answers faster than real work and would inflate the score
+    if (status >= 400) {
+      throw new IllegalStateException("Unexpected status " + status);
+    }
+
+    return status;
+  }
+
+}
@@ -0,0 +1,72 @@
+package ricardotenorio.github.com.beerstock.benchmark;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Group;
+import org.openjdk.jmh.annotations.GroupThreads;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+import org.springframework.context.ConfigurableApplicationContext;
+import ricardotenorio.github.com.beerstock.dto.BeerDTO;
+import ricardotenorio.github.com.beerstock.entity.Beer;
+import ricardotenorio.github.com.beerstock.exception.BeerNotFoundException;
+import ricardotenorio.github.com.beerstock.exception.BeerStockExceededException;
+import ricardotenorio.github.com.beerstock.repository.BeerRepository;
+import ricardotenorio.github.com.beerstock.service.BeerService;
+
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Increments and decrements racing on a single hot beer. The stock starts
+ * halfway to a large max so neither side runs into the limits.
+ */
+@State(Scope.Group)
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+public class StockContentionBenchmark {
+
+  private static final int MAX = 100_000_000;
+
+  private ConfigurableApplicationContext context;
+  private BeerService beerService;
+  private Long hotBeerId;
+
+  @Setup(Level.Trial)
+  public void setup() {
+    context = BenchmarkContexts.start();
+    beerService = context.getBean(BeerService.class);
+    Beer hotBeer = BenchmarkContexts.beers(1, MAX, MAX / 2).get(0);
+    hotBeerId = context.getBean(BeerRepository.class).save(hotBeer).getId();
+  }
+
+  @TearDown(Level.Trial)
+  public void tearDown() {
+    context.close();
+  }
+
+  @Benchmark
+  @Group("stock")
+  @GroupThreads(2)
+  public BeerDTO increment() throws BeerNotFoundException, BeerStockExceededException {
+    return beerService.increment(hotBeerId, 1);
+  }
+
+  @Benchmark
+  @Group("stock")
+  @GroupThreads(2)
+  public BeerDTO decrement() throws BeerNotFoundException, BeerStockExceededException {
+    return beerService.decrement(hotBeerId, 1);
+  }
+
+}
@@ -0,0 +1,19 @@
+package ricardotenorio.github.com.beerstock.config;
+
+import io.micrometer.core.instrument.binder.MeterBinder;
+import io.micrometer.core.instrument.binder.cache.CaffeineCacheMetrics;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+import ricardotenorio.github.com.beerstock.service.BeerCache;
+
+@Configuration
+public class CacheMetricsConfig {
+
+  private static final String BEER_BY_NAME_CACHE = "beers.by-name";
+
+  @Bean
+  public MeterBinder beerCacheMetrics(BeerCache beerCache) {
+    return registry -> CaffeineCacheMetrics.monitor(registry, beerCache.getByName(), BEER_BY_NAME_CACHE);
+  }
+
+}
@@ -0,0 +1,60 @@
+package ricardotenorio.github.com.beerstock.config;
+
+import org.apache.tomcat.util.threads.TaskThreadFactory;
+import org.springframework.beans.factory.annotation.Qualifier;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.boot.web.embedded.tomcat.TomcatProtocolHandlerCustomizer;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+import ricardotenorio.github.com.beerstock.filter.OverflowFilter;
+
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Request execution modes, picked with {@code beerstock.execution.mode}.
+ *
+ * <p>{@code platform}, the default, keeps Tomcat's own pool of up to 200
+ * threads. {@code bounded} serves requests from a small fixed pool with a
+ * bounded queue instead: every request blocks on JDBC, so threads beyond the
+ * connection pool only add context switches and lock waits, while bursts
+ * wait in the queue. This only caps concurrency; it is not a different
+ * execution model, which on this stack would mean virtual threads (Java 21)
+ * or a reactive rewrite. {@code ExecutionModeBenchmark} compares the two.
+ *
+ * <p>When the queue is full, the request is handed to a small overflow pool
+ * where {@link OverflowFilter} answers it with {@code 503}, rather than Tomcat
+ * dropping the connection. Only when that pool is full too is the connection
+ * closed.
+ */
+@Configuration
+@ConditionalOnProperty(name = "beerstock.execution.mode", havingValue = "bounded")
+public class ExecutionConfig {
+
+  @Bean(destroyMethod = "shutdown")
+  public ThreadPoolExecutor overflowExecutor(
+      @Value("${beerstock.execution.overflow-threads:2}") int threads,
+      @Value("${beerstock.execution.queue-capacity:1000}") int queueCapacity) {
+    return new ThreadPoolExecutor(threads, threads, 0, TimeUnit.MILLISECONDS,
+        new ArrayBlockingQueue<>(queueCapacity), new TaskThreadFactory("http-overflow-", true, Thread.NORM_PRIORITY));
+  }
+
+  @Bean(destroyMethod = "shutdown")
+  public ThreadPoolExecutor requestExecutor(
+      @Value("${beerstock.execution.threads:32}") int threads,
+      @Value("${beerstock.execution.queue-capacity:1000}") int queueCapacity,
+      @Qualifier("overflowExecutor") ThreadPoolExecutor overflowExecutor) {
+    return new ThreadPoolExecutor(threads, threads, 0, TimeUnit.MILLISECONDS,
+        new ArrayBlockingQueue<>(queueCapacity), new TaskThreadFactory("http-bounded-", true, Thread.NORM_PRIORITY),
+        (task, executor) -> overflowExecutor.execute(() -> OverflowFilter.runAsOverflow(task)));
+  }
+
+  @Bean
+  public TomcatProtocolHandlerCustomizer<?> boundedRequestExecutor(
+      @Qualifier("requestExecutor") ThreadPoolExecutor requestExecutor) {
+    return protocolHandler -> protocolHandler.setExecutor(requestExecutor);
+  }
+
+}
@@ -2,6 +2,7 @@ package ricardotenorio.github.com.beerstock.config;
 
 import org.springframework.context.annotation.Bean;
 import org.springframework.context.annotation.Configuration;
+import org.springframework.web.context.request.WebRequest;
 import springfox.documentation.builders.ApiInfoBuilder;
 import springfox.documentation.builders.PathSelectors;
 import springfox.documentation.service.ApiInfo;
@@ -30,7 +31,8 @@ public class SwaggerConfig {
         .apis(basePackage(BASE_PACKAGE))
         .paths(PathSelectors.any())
         .build()
-        .apiInfo(buildApiInfo());
+        .apiInfo(buildApiInfo())
+        .ignoredParameterTypes(WebRequest.class);
   }
 
   private ApiInfo buildApiInfo() {
@@ -0,0 +1,42 @@
+package ricardotenorio.github.com.beerstock.config;
+
+import com.fasterxml.jackson.databind.SerializationFeature;
+import com.fasterxml.jackson.dataformat.smile.SmileFactory;
+import com.fasterxml.jackson.dataformat.smile.SmileGenerator;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+import org.springframework.http.MediaType;
+import org.springframework.http.converter.json.Jackson2ObjectMapperBuilder;
+import org.springframework.http.converter.smile.MappingJackson2SmileHttpMessageConverter;
+
+/**
+ * Binary representation for clients that send
+ * {@code Accept: application/x-jackson-smile}; JSON stays the default.
+ *
+ * <p>Smile writes ints as zig-zag varints and refers back to property names
+ * and short strings it has already written, so a list of beers repeats
+ * neither its keys nor its brands. Enums go out as ordinals.
+ *
+ * <p>A Smile body has other bytes than the JSON one, so its ETag carries the
+ * {@link #SMILE_VARIANT} suffix.
+ */
+@Configuration
+public class WireFormatConfig {
+
+  public static final MediaType SMILE = new MediaType("application", "x-jackson-smile");
+  public static final String SMILE_VARIANT = "smile";
+
+  @Bean
+  public MappingJackson2SmileHttpMessageConverter smileHttpMessageConverter(
+      Jackson2ObjectMapperBuilder objectMapperBuilder) {
+    SmileFactory smileFactory = new SmileFactory();
+    smileFactory.enable(SmileGenerator.Feature.CHECK_SHARED_STRING_VALUES);
+
+    // the builder is a prototype bean, so this does not leak into the JSON mapper
+    return new MappingJackson2SmileHttpMessageConverter(objectMapperBuilder
+        .factory(smileFactory)
+        .featuresToEnable(SerializationFeature.WRITE_ENUMS_USING_INDEX)
+        .build());
+  }
+
+}
@@ -2,24 +2,73 @@ package ricardotenorio.github.com.beerstock.controller;
 
 import lombok.AllArgsConstructor;
 import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.data.domain.Page;
+import org.springframework.data.domain.Sort;
+import org.springframework.http.HttpHeaders;
 import org.springframework.http.HttpStatus;
+import org.springframework.http.InvalidMediaTypeException;
+import org.springframework.http.MediaType;
+import org.springframework.http.ResponseEntity;
 import org.springframework.web.bind.annotation.*;
+import org.springframework.web.context.request.ServletWebRequest;
+import org.springframework.web.servlet.mvc.method.annotation.SseEmitter;
+import org.springframework.web.servlet.mvc.method.annotation.StreamingResponseBody;
+import ricardotenorio.github.com.beerstock.config.WireFormatConfig;
 import ricardotenorio.github.com.beerstock.dto.BeerDTO;
+import ricardotenorio.github.com.beerstock.dto.BeerImportResultDTO;
+import ricardotenorio.github.com.beerstock.dto.BeerSearchDTO;
+import ricardotenorio.github.com.beerstock.dto.BeerSliceDTO;
+import ricardotenorio.github.com.beerstock.dto.BeerStockDTO;
+import ricardotenorio.github.com.beerstock.dto.BeerSuggestionDTO;
+import ricardotenorio.github.com.beerstock.dto.LocationStockDTO;
 import ricardotenorio.github.com.beerstock.dto.QuantityDTO;
+import ricardotenorio.github.com.beerstock.dto.StockMovementResultDTO;
+import ricardotenorio.github.com.beerstock.dto.StockMovementsDTO;
+import ricardotenorio.github.com.beerstock.dto.StockReservationDTO;
+import ricardotenorio.github.com.beerstock.dto.StockReservationRequestDTO;
+import ricardotenorio.github.com.beerstock.enums.BeerSortField;
 import ricardotenorio.github.com.beerstock.exception.BeerAlreadyRegisteredException;
+import ricardotenorio.github.com.beerstock.exception.BeerImportException;
 import ricardotenorio.github.com.beerstock.exception.BeerNotFoundException;
 import ricardotenorio.github.com.beerstock.exception.BeerStockExceededException;
+import ricardotenorio.github.com.beerstock.exception.LocationStockUnavailableException;
+import ricardotenorio.github.com.beerstock.exception.StockReservationNotFoundException;
+import ricardotenorio.github.com.beerstock.exception.StockReservationUnavailableException;
+import ricardotenorio.github.com.beerstock.service.BeerExportService;
+import ricardotenorio.github.com.beerstock.service.BeerImportService;
+import ricardotenorio.github.com.beerstock.service.BeerNameIndex;
 import ricardotenorio.github.com.beerstock.service.BeerService;
+import ricardotenorio.github.com.beerstock.service.CatalogSnapshotCache;
+import ricardotenorio.github.com.beerstock.service.CatalogVersion;
+import ricardotenorio.github.com.beerstock.service.LocationStockService;
+import ricardotenorio.github.com.beerstock.service.StockEventPublisher;
+import ricardotenorio.github.com.beerstock.service.StockReservationService;
 
 import javax.validation.Valid;
+import java.io.IOException;
+import java.io.Reader;
 import java.util.List;
+import java.util.Locale;
 
 @RestController
 @RequestMapping("/api/v1/beers")
 @AllArgsConstructor(onConstructor = @__(@Autowired))
 public class BeerController implements BeerControllerDocs {
 
+  static final String NEXT_CURSOR_HEADER = "X-Next-Cursor";
+  static final String TOTAL_COUNT_HEADER = "X-Total-Count";
+
+  private static final String GZIP_ENCODING = "gzip";
+
   private final BeerService beerService;
+  private final BeerExportService beerExportService;
+  private final BeerImportService beerImportService;
+  private final CatalogVersion catalogVersion;
+  private final StockEventPublisher stockEventPublisher;
+  private final LocationStockService locationStockService;
+  private final StockReservationService stockReservationService;
+  private final BeerNameIndex beerNameIndex;
+  private final CatalogSnapshotCache catalogSnapshotCache;
 
   @PostMapping
   @ResponseStatus(HttpStatus.CREATED)
@@ -28,15 +77,124 @@ public class BeerController implements BeerControllerDocs {
     return beerService.createBeer(beerDTO);
   }
 
+  @PostMapping(value = "/import", consumes = MediaType.APPLICATION_JSON_VALUE)
+  public BeerImportResultDTO importBeers(@RequestBody List<BeerDTO> beerDTOs) throws
+      BeerImportException {
+    return beerImportService.importBeers(beerDTOs);
+  }
+
+  @PostMapping(value = "/import", consumes = BeerImportService.CSV_VALUE)
+  public BeerImportResultDTO importBeersFromCsv(Reader reader) throws
+      BeerImportException, IOException {
+    return beerImportService.importCsv(reader);
+  }
+
   @GetMapping("/{name}")
-  public BeerDTO findByName(@PathVariable String name) throws
+  public ResponseEntity<BeerDTO> findByName(@PathVariable String name,
+      @RequestHeader(value = HttpHeaders.ACCEPT, required = false) String accept) throws
       BeerNotFoundException {
-    return beerService.findByName(name);
+    BeerDTO beerDTO = beerService.findByName(name);
+    String variant = prefersSmile(accept) ? "-" + WireFormatConfig.SMILE_VARIANT : "";
+
+    // the stock ledger changes the quantity without bumping the version until it flushes
+    return ResponseEntity.ok()
+        .eTag(String.format("\"%d-%d-%d%s\"", beerDTO.getId(), beerDTO.getVersion(), beerDTO.getQuantity(),
+            variant))
+        .varyBy(HttpHeaders.ACCEPT)
+        .body(beerDTO);
+  }
+
+  @GetMapping(produces = MediaType.APPLICATION_JSON_VALUE, params = {"!page", "!size", "!after"})
+  public ResponseEntity<byte[]> listBeersSnapshot(
+      @RequestHeader(value = HttpHeaders.ACCEPT_ENCODING, required = false) String acceptEncoding,
+      ServletWebRequest request) throws IOException {
+    boolean gzip = acceptsGzip(acceptEncoding);
+    varyBy(request, HttpHeaders.ACCEPT, HttpHeaders.ACCEPT_ENCODING);
+    if (request.checkNotModified(gzip
+        ? catalogVersion.eTag(CatalogSnapshotCache.Snapshot.GZIP_VARIANT)
+        : catalogVersion.eTag())) {
+      return null;
+    }
+
+    CatalogSnapshotCache.Snapshot snapshot = catalogSnapshotCache.current();
+    ResponseEntity.BodyBuilder response = ResponseEntity.ok()
+        .contentType(MediaType.APPLICATION_JSON);
+
+    if (gzip) {
+      return response.eTag(snapshot.getGzipETag())
+          .header(HttpHeaders.CONTENT_ENCODING, GZIP_ENCODING)
+          .body(snapshot.getGzip());
+    }
+
+    return response.eTag(snapshot.getETag()).body(snapshot.getJson());
   }
 
   @GetMapping
-  public List<BeerDTO> listBeers() {
-    return beerService.listAll();
+  public ResponseEntity<List<BeerDTO>> listBeers(
+      @RequestParam(required = false) Integer page,
+      @RequestParam(required = false) Integer size,
+      @RequestParam(required = false) Long after,
+      ServletWebRequest request) {
+    String eTag = prefersSmile(request.getHeader(HttpHeaders.ACCEPT))
+        ? catalogVersion.eTag(WireFormatConfig.SMILE_VARIANT)
+        : catalogVersion.eTag();
+    varyBy(request, HttpHeaders.ACCEPT);
+    if (request.checkNotModified(eTag)) {
+      return null;
+    }
+
+    if (page == null && size == null && after == null) {
+      return ResponseEntity.ok().eTag(eTag).body(beerService.listAll());
+    }
+
+    int pageSize = size != null ? size : BeerService.DEFAULT_PAGE_SIZE;
+    BeerSliceDTO slice = after != null
+        ? beerService.listAfter(after, pageSize)
+        : beerService.listPage(page != null ? page : 0, pageSize);
+
+    ResponseEntity.BodyBuilder response = ResponseEntity.ok().eTag(eTag);
+    if (slice.getNextCursor() != null) {
+      response.header(NEXT_CURSOR_HEADER, slice.getNextCursor().toString());
+    }
+
+    return response.body(slice.getBeers());
+  }
+
+  @GetMapping("/search")
+  public ResponseEntity<List<BeerDTO>> searchBeers(@Valid BeerSearchDTO search,
+      @RequestParam(defaultValue = "ID") BeerSortField sort,
+      @RequestParam(defaultValue = "ASC") Sort.Direction direction,
+      @RequestParam(defaultValue = "0") int page,
+      @RequestParam(defaultValue = "" + BeerService.DEFAULT_PAGE_SIZE) int size) {
+    Page<BeerDTO> result = beerService.search(search, sort, direction, page, size);
+
+    return ResponseEntity.ok()
+        .header(TOTAL_COUNT_HEADER, Long.toString(result.getTotalElements()))
+        .body(result.getContent());
+  }
+
+  @GetMapping("/suggest")
+  public List<BeerSuggestionDTO> suggestBeers(@RequestParam String q,
+      @RequestParam(defaultValue = "10") int limit) {
+    return beerNameIndex.suggest(q, limit);
+  }
+
+  @GetMapping(value = "/export", produces = BeerExportService.NDJSON_VALUE)
+  public ResponseEntity<StreamingResponseBody> exportBeers() {
+    return ResponseEntity.ok()
+        .contentType(MediaType.parseMediaType(BeerExportService.NDJSON_VALUE))
+        .body(beerExportService::export);
+  }
+
+  @GetMapping("/low-stock")
+  public List<BeerDTO> listLowStock(
+      @RequestParam(defaultValue = "" + BeerService.DEFAULT_PAGE_SIZE) int size) {
+    return beerService.listLowStock(size);
+  }
+
+  @GetMapping(value = "/stock-events", produces = MediaType.TEXT_EVENT_STREAM_VALUE)
+  public SseEmitter stockEvents() {
+    return stockEventPublisher.subscribe();
   }
 
   @DeleteMapping("/{id}")
@@ -45,16 +203,134 @@ public class BeerController implements BeerControllerDocs {
     beerService.deleteById(id);
   }
 
-  @PatchMapping("/{id}/increment")
-  public BeerDTO increment(@PathVariable Long id, @RequestBody @Valid QuantityDTO quantityDTO)
-      throws BeerNotFoundException, BeerStockExceededException {
-    return beerService.increment(id, quantityDTO.getQuantity());
+  @PatchMapping("/stock")
+  public List<StockMovementResultDTO> applyStockMovements(
+      @RequestBody @Valid StockMovementsDTO stockMovementsDTO) {
+    return beerService.applyStockMovements(stockMovementsDTO.getMovements());
+  }
+
+  @GetMapping("/{id}/stock")
+  public BeerStockDTO findStock(@PathVariable Long id) throws BeerNotFoundException {
+    return locationStockService.findStock(id);
+  }
+
+  @PatchMapping("/{id}/locations/{location}/increment")
+  public LocationStockDTO incrementAtLocation(@PathVariable Long id, @PathVariable String location,
+      @RequestBody @Valid QuantityDTO quantityDTO)
+      throws BeerNotFoundException, BeerStockExceededException, LocationStockUnavailableException {
+    return locationStockService.increment(id, location, quantityDTO.getQuantity());
+  }
+
+  @PatchMapping("/{id}/locations/{location}/decrement")
+  public LocationStockDTO decrementAtLocation(@PathVariable Long id, @PathVariable String location,
+      @RequestBody @Valid QuantityDTO quantityDTO)
+      throws BeerNotFoundException, BeerStockExceededException, LocationStockUnavailableException {
+    return locationStockService.decrement(id, location, quantityDTO.getQuantity());
+  }
+
+  @PostMapping("/{id}/reservations")
+  @ResponseStatus(HttpStatus.CREATED)
+  public StockReservationDTO reserve(@PathVariable Long id,
+      @RequestBody @Valid StockReservationRequestDTO reservationRequestDTO)
+      throws BeerNotFoundException, BeerStockExceededException, StockReservationUnavailableException {
+    return stockReservationService.reserve(id, reservationRequestDTO.getQuantity(),
+        reservationRequestDTO.getTtlSeconds());
+  }
+
+  @PostMapping("/reservations/{reservationId}/commit")
+  public BeerDTO commitReservation(@PathVariable Long reservationId)
+      throws StockReservationNotFoundException, BeerNotFoundException {
+    return stockReservationService.commit(reservationId);
+  }
+
+  @DeleteMapping("/reservations/{reservationId}")
+  @ResponseStatus(HttpStatus.NO_CONTENT)
+  public void releaseReservation(@PathVariable Long reservationId)
+      throws StockReservationNotFoundException {
+    stockReservationService.release(reservationId);
+  }
+
+  /**
+   * Sets Vary before the conditional check, so that a 304 carries it as well
+   * and caches keep the variants apart.
+   */
+  private static void varyBy(ServletWebRequest request, String... requestHeaders) {
+    request.getResponse().setHeader(HttpHeaders.VARY, String.join(", ", requestHeaders));
+  }
+
+  /**
+   * Whether the Accept-Encoding header allows gzip: listed, or covered by
+   * {@code *}, with a quality above zero.
+   */
+  private static boolean acceptsGzip(String acceptEncoding) {
+    if (acceptEncoding == null) {
+      return false;
+    }
+
+    Double gzipQuality = null;
+    double anyQuality = 0;
+    for (String element : acceptEncoding.split(",")) {
+      String[] parameters = element.split(";");
+      String coding = parameters[0].trim().toLowerCase(Locale.ROOT);
+      double quality = qualityOf(parameters);
+
+      if (GZIP_ENCODING.equals(coding) || "x-gzip".equals(coding)) {
+        gzipQuality = quality;
+      } else if ("*".equals(coding)) {
+        anyQuality = quality;
+      }
+    }
+
+    return (gzipQuality != null ? gzipQuality : anyQuality) > 0;
+  }
+
+  /**
+   * Whether content negotiation will pick Smile for the Accept header: JSON is
+   * the default, so Smile has to rank above every type that covers JSON.
+   */
+  private static boolean prefersSmile(String accept) {
+    if (accept == null) {
+      return false;
+    }
+
+    List<MediaType> mediaTypes;
+    try {
+      mediaTypes = MediaType.parseMediaTypes(accept);
+    } catch (InvalidMediaTypeException e) {
+      return false;
+    }
+
+    MediaType.sortBySpecificityAndQuality(mediaTypes);
+    for (MediaType mediaType : mediaTypes) {
+      if (mediaType.getQualityValue() == 0) {
+        continue;
+      }
+
+      if (mediaType.includes(MediaType.APPLICATION_JSON)) {
+        return false;
+      }
+      if (mediaType.includes(WireFormatConfig.SMILE)) {
+        return true;
+      }
+    }
+
+    return false;
   }
 
-  @PatchMapping("/{id}/decrement")
-  public BeerDTO decrement(@PathVariable Long id, @RequestBody @Valid QuantityDTO quantityDTO)
-      throws BeerNotFoundException, BeerStockExceededException {
-    return beerService.decrement(id, quantityDTO.getQuantity());
+  private static double qualityOf(String[] parameters) {
+    for (int i = 1; i < parameters.length; i++) {
+      String parameter = parameters[i].trim();
+
+      if (parameter.startsWith("q=") || parameter.startsWith("Q=")) {
+        try {
+          return Double.parseDouble(parameter.substring(2).trim());
+        } catch (NumberFormatException e) {
+          return 0;
+        }
+      }
+    }
+
+    return 1;
   }
 
 }
@@ -2,13 +2,37 @@ package ricardotenorio.github.com.beerstock.controller;
 
 import io.swagger.annotations.Api;
 import io.swagger.annotations.ApiOperation;
+import io.swagger.annotations.ApiParam;
 import io.swagger.annotations.ApiResponse;
 import io.swagger.annotations.ApiResponses;
+import org.springframework.data.domain.Sort;
+import org.springframework.http.ResponseEntity;
 import org.springframework.web.bind.annotation.PathVariable;
+import org.springframework.web.context.request.ServletWebRequest;
+import org.springframework.web.servlet.mvc.method.annotation.SseEmitter;
+import org.springframework.web.servlet.mvc.method.annotation.StreamingResponseBody;
 import ricardotenorio.github.com.beerstock.dto.BeerDTO;
+import ricardotenorio.github.com.beerstock.dto.BeerImportResultDTO;
+import ricardotenorio.github.com.beerstock.dto.BeerSearchDTO;
+import ricardotenorio.github.com.beerstock.dto.BeerStockDTO;
+import ricardotenorio.github.com.beerstock.dto.BeerSuggestionDTO;
+import ricardotenorio.github.com.beerstock.dto.LocationStockDTO;
+import ricardotenorio.github.com.beerstock.dto.QuantityDTO;
+import ricardotenorio.github.com.beerstock.dto.StockMovementResultDTO;
+import ricardotenorio.github.com.beerstock.dto.StockMovementsDTO;
+import ricardotenorio.github.com.beerstock.dto.StockReservationDTO;
+import ricardotenorio.github.com.beerstock.dto.StockReservationRequestDTO;
+import ricardotenorio.github.com.beerstock.enums.BeerSortField;
 import ricardotenorio.github.com.beerstock.exception.BeerAlreadyRegisteredException;
+import ricardotenorio.github.com.beerstock.exception.BeerImportException;
 import ricardotenorio.github.com.beerstock.exception.BeerNotFoundException;
+import ricardotenorio.github.com.beerstock.exception.BeerStockExceededException;
+import ricardotenorio.github.com.beerstock.exception.LocationStockUnavailableException;
+import ricardotenorio.github.com.beerstock.exception.StockReservationNotFoundException;
+import ricardotenorio.github.com.beerstock.exception.StockReservationUnavailableException;
 
+import java.io.IOException;
+import java.io.Reader;
 import java.util.List;
 
 @Api("Manages beer stock")
@@ -21,18 +45,97 @@ public interface BeerControllerDocs {
   })
   BeerDTO createBeer(BeerDTO beerDTO) throws BeerAlreadyRegisteredException;
 
-  @ApiOperation(value = "Returns beer found by a given name")
+  @ApiOperation(value = "Imports a list of beers sent as JSON")
+  @ApiResponses(value = {
+      @ApiResponse(code = 200, message = "Number of beers imported and the rows rejected"),
+      @ApiResponse(code = 400, message = "Too many rows")
+  })
+  BeerImportResultDTO importBeers(List<BeerDTO> beerDTOs) throws BeerImportException;
+
+  @ApiOperation(value = "Imports beers sent as CSV with a name,brand,max,quantity,type header")
+  @ApiResponses(value = {
+      @ApiResponse(code = 200, message = "Number of beers imported and the rows rejected"),
+      @ApiResponse(code = 400, message = "Missing header columns or too many rows")
+  })
+  BeerImportResultDTO importBeersFromCsv(Reader reader) throws BeerImportException, IOException;
+
+  @ApiOperation(value = "Returns beer found by a given name",
+      notes = "JSON and Smile bodies carry different ETags.")
   @ApiResponses(value = {
       @ApiResponse(code = 200, message = "Beer found"),
+      @ApiResponse(code = 304, message = "Beer unchanged since the ETag sent in If-None-Match"),
       @ApiResponse(code = 404, message = "Not found")
   })
-  BeerDTO findByName(@PathVariable String name) throws BeerNotFoundException;
+  ResponseEntity<BeerDTO> findByName(@PathVariable String name, @ApiParam(hidden = true) String accept)
+      throws BeerNotFoundException;
+
+  @ApiOperation(value = "Lists every beer registered as JSON",
+      notes = "Served from a pre-serialized snapshot of the catalog, gzipped when the client "
+          + "accepts it; the gzipped body carries its own ETag. Requests with page, size or after "
+          + "are served by the paged listing.")
+  @ApiResponses(value = {
+      @ApiResponse(code = 200, message = "List of beers registered"),
+      @ApiResponse(code = 304, message = "Catalog unchanged since the ETag sent in If-None-Match")
+  })
+  ResponseEntity<byte[]> listBeersSnapshot(@ApiParam(hidden = true) String acceptEncoding,
+      ServletWebRequest request) throws IOException;
+
+  @ApiOperation(value = "Lists beers registered, optionally one page at a time",
+      notes = "Without parameters every beer is returned. With page/size or after, "
+          + "the X-Next-Cursor header holds the id to pass as after for the next page. "
+          + "JSON and Smile bodies carry different ETags.")
+  @ApiResponses(value = {
+      @ApiResponse(code = 200, message = "List of beers registered"),
+      @ApiResponse(code = 304, message = "Catalog unchanged since the ETag sent in If-None-Match")
+  })
+  ResponseEntity<List<BeerDTO>> listBeers(
+      @ApiParam("Zero-based page number, ordered by id") Integer page,
+      @ApiParam("Page size, at most 1000") Integer size,
+      @ApiParam("Keyset cursor: only beers with a greater id are returned") Long after,
+      ServletWebRequest request);
+
+  @ApiOperation(value = "Searches beers by type, brand prefix and quantity or max ranges",
+      notes = "Every filter is optional and ranges are inclusive. The X-Total-Count header "
+          + "holds the number of matching beers.")
+  @ApiResponses(value = {
+      @ApiResponse(code = 200, message = "One page of matching beers"),
+      @ApiResponse(code = 400, message = "Invalid filter, sort field or direction")
+  })
+  ResponseEntity<List<BeerDTO>> searchBeers(BeerSearchDTO search,
+      @ApiParam("Field to sort by") BeerSortField sort,
+      @ApiParam("ASC or DESC") Sort.Direction direction,
+      @ApiParam("Zero-based page number") int page,
+      @ApiParam("Page size, at most 1000") int size);
+
+  @ApiOperation(value = "Suggests beers whose name or brand starts with or resembles the text typed",
+      notes = "Served from memory. Prefix matches rank first and misspellings are matched by "
+          + "shared trigrams; brand matches weigh half as much as name matches.")
+  @ApiResponses(value = {
+      @ApiResponse(code = 200, message = "Best matches first, possibly empty")
+  })
+  List<BeerSuggestionDTO> suggestBeers(@ApiParam("Text typed so far") String q,
+      @ApiParam("Maximum number of suggestions, at most 50") int limit);
+
+  @ApiOperation(value = "Streams the whole catalog as newline-delimited JSON")
+  @ApiResponses(value = {
+      @ApiResponse(code = 200, message = "One beer per line, ordered by id")
+  })
+  ResponseEntity<StreamingResponseBody> exportBeers();
+
+  @ApiOperation(value = "Lists beers at or below their reorder level, lowest headroom first")
+  @ApiResponses(value = {
+      @ApiResponse(code = 200, message = "List of beers that need restocking")
+  })
+  List<BeerDTO> listLowStock(@ApiParam("Maximum number of beers returned, at most 1000") int size);
 
-  @ApiOperation(value = "Lists all beers registered")
+  @ApiOperation(value = "Streams stock changes as server-sent events",
+      notes = "Events are named CREATED, DELETED or STOCK_CHANGED, plus LOW_STOCK when a "
+          + "beer drops to its reorder level and NEAR_CAPACITY when it approaches its maximum. "
+          + "Subscribers that fall too far behind are disconnected and should reconnect.")
   @ApiResponses(value = {
-      @ApiResponse(code = 200, message = "List of all beers registered")
+      @ApiResponse(code = 200, message = "Event stream opened")
   })
-  List<BeerDTO> listBeers();
+  SseEmitter stockEvents();
 
   @ApiOperation(value = "Deletes a beer given a valid id")
   @ApiResponses(value = {
@@ -41,4 +144,68 @@ public interface BeerControllerDocs {
   })
   void deleteById(@PathVariable Long id) throws BeerNotFoundException;
 
+  @ApiOperation(value = "Applies a batch of stock movements in one transaction")
+  @ApiResponses(value = {
+      @ApiResponse(code = 200, message = "Outcome of each movement, in request order"),
+      @ApiResponse(code = 400, message = "Missing or invalid movements")
+  })
+  List<StockMovementResultDTO> applyStockMovements(StockMovementsDTO stockMovementsDTO);
+
+  @ApiOperation(value = "Returns the stock of a beer per location and in total")
+  @ApiResponses(value = {
+      @ApiResponse(code = 200, message = "Unassigned, reserved and available stock, stock per location and their total"),
+      @ApiResponse(code = 404, message = "Beer not found")
+  })
+  BeerStockDTO findStock(@PathVariable Long id) throws BeerNotFoundException;
+
+  @ApiOperation(value = "Adds stock of a beer at a location, creating the location if needed")
+  @ApiResponses(value = {
+      @ApiResponse(code = 200, message = "Stock now held at the location"),
+      @ApiResponse(code = 400, message = "Total stock would exceed the beer max"),
+      @ApiResponse(code = 404, message = "Beer not found"),
+      @ApiResponse(code = 409, message = "Location stock is read-only while the stock ledger is enabled")
+  })
+  LocationStockDTO incrementAtLocation(@PathVariable Long id, @PathVariable String location,
+      QuantityDTO quantityDTO)
+      throws BeerNotFoundException, BeerStockExceededException, LocationStockUnavailableException;
+
+  @ApiOperation(value = "Removes stock of a beer from a location")
+  @ApiResponses(value = {
+      @ApiResponse(code = 200, message = "Stock now held at the location"),
+      @ApiResponse(code = 400, message = "Not enough stock at the location"),
+      @ApiResponse(code = 404, message = "Beer not found"),
+      @ApiResponse(code = 409, message = "Location stock is read-only while the stock ledger is enabled")
+  })
+  LocationStockDTO decrementAtLocation(@PathVariable Long id, @PathVariable String location,
+      QuantityDTO quantityDTO)
+      throws BeerNotFoundException, BeerStockExceededException, LocationStockUnavailableException;
+
+  @ApiOperation(value = "Holds stock of a beer until the reservation is committed, released or expires",
+      notes = "Reserved units cannot be decremented by anyone else. Without ttlSeconds the "
+          + "reservation expires after the configured default.")
+  @ApiResponses(value = {
+      @ApiResponse(code = 201, message = "Reservation created"),
+      @ApiResponse(code = 400, message = "Not enough unreserved stock"),
+      @ApiResponse(code = 404, message = "Beer not found"),
+      @ApiResponse(code = 409, message = "Reservations are disabled while the stock ledger is enabled")
+  })
+  StockReservationDTO reserve(@PathVariable Long id,
+      StockReservationRequestDTO reservationRequestDTO)
+      throws BeerNotFoundException, BeerStockExceededException, StockReservationUnavailableException;
+
+  @ApiOperation(value = "Decrements the stock held by a reservation")
+  @ApiResponses(value = {
+      @ApiResponse(code = 200, message = "Beer with its stock decremented"),
+      @ApiResponse(code = 404, message = "Reservation not found, already used or expired")
+  })
+  BeerDTO commitReservation(@PathVariable Long reservationId)
+      throws StockReservationNotFoundException, BeerNotFoundException;
+
+  @ApiOperation(value = "Releases the stock held by a reservation")
+  @ApiResponses(value = {
+      @ApiResponse(code = 204, message = "Reservation released"),
+      @ApiResponse(code = 404, message = "Reservation not found, already used or expired")
+  })
+  void releaseReservation(@PathVariable Long reservationId) throws StockReservationNotFoundException;
+
 }
@@ -0,0 +1,39 @@
+package ricardotenorio.github.com.beerstock.controller;
+
+import lombok.AllArgsConstructor;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.web.bind.annotation.*;
+import ricardotenorio.github.com.beerstock.dto.BeerDTO;
+import ricardotenorio.github.com.beerstock.dto.QuantityDTO;
+import ricardotenorio.github.com.beerstock.service.StockWriteQueues;
+
+import javax.validation.Valid;
+import java.util.concurrent.CompletableFuture;
+
+/**
+ * Increment and decrement handed to {@link StockWriteQueues}. The request is
+ * completed asynchronously once the change's batch commits, so the request
+ * thread is released while the change waits in its queue.
+ */
+@RestController
+@RequestMapping("/api/v1/beers")
+@ConditionalOnProperty(name = "beerstock.stock.queues.enabled", havingValue = "true")
+@AllArgsConstructor(onConstructor = @__(@Autowired))
+public class QueuedStockChangeController {
+
+  private final StockWriteQueues stockWriteQueues;
+
+  @PatchMapping("/{id}/increment")
+  public CompletableFuture<BeerDTO> increment(@PathVariable Long id,
+      @RequestBody @Valid QuantityDTO quantityDTO) {
+    return stockWriteQueues.submit(id, quantityDTO.getQuantity());
+  }
+
+  @PatchMapping("/{id}/decrement")
+  public CompletableFuture<BeerDTO> decrement(@PathVariable Long id,
+      @RequestBody @Valid QuantityDTO quantityDTO) {
+    return stockWriteQueues.submit(id, -quantityDTO.getQuantity());
+  }
+
+}
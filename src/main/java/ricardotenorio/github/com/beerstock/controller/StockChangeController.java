@@ -0,0 +1,40 @@
+package ricardotenorio.github.com.beerstock.controller;
+
+import lombok.AllArgsConstructor;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.web.bind.annotation.*;
+import ricardotenorio.github.com.beerstock.dto.BeerDTO;
+import ricardotenorio.github.com.beerstock.dto.QuantityDTO;
+import ricardotenorio.github.com.beerstock.exception.BeerNotFoundException;
+import ricardotenorio.github.com.beerstock.exception.BeerStockExceededException;
+import ricardotenorio.github.com.beerstock.service.BeerService;
+
+import javax.validation.Valid;
+
+/**
+ * Increment and decrement, applied on the request thread. This is the
+ * default; {@link QueuedStockChangeController} takes over the same endpoints
+ * when {@code beerstock.stock.queues.enabled} is set.
+ */
+@RestController
+@RequestMapping("/api/v1/beers")
+@ConditionalOnProperty(name = "beerstock.stock.queues.enabled", havingValue = "false", matchIfMissing = true)
+@AllArgsConstructor(onConstructor = @__(@Autowired))
+public class StockChangeController {
+
+  private final BeerService beerService;
+
+  @PatchMapping("/{id}/increment")
+  public BeerDTO increment(@PathVariable Long id, @RequestBody @Valid QuantityDTO quantityDTO)
+      throws BeerNotFoundException, BeerStockExceededException {
+    return beerService.increment(id, quantityDTO.getQuantity());
+  }
+
+  @PatchMapping("/{id}/decrement")
+  public BeerDTO decrement(@PathVariable Long id, @RequestBody @Valid QuantityDTO quantityDTO)
+      throws BeerNotFoundException, BeerStockExceededException {
+    return beerService.decrement(id, quantityDTO.getQuantity());
+  }
+
+}
@@ -1,5 +1,6 @@
 package ricardotenorio.github.com.beerstock.dto;
 
+import com.fasterxml.jackson.annotation.JsonIgnore;
 import lombok.AllArgsConstructor;
 import lombok.Builder;
 import lombok.Data;
@@ -9,11 +10,12 @@ import ricardotenorio.github.com.beerstock.enums.BeerType;
 import javax.persistence.EnumType;
 import javax.persistence.Enumerated;
 import javax.validation.constraints.Max;
+import javax.validation.constraints.Min;
 import javax.validation.constraints.NotNull;
 import javax.validation.constraints.Size;
 
 @Data
-@Builder
+@Builder(toBuilder = true)
 @NoArgsConstructor
 @AllArgsConstructor
 public class BeerDTO {
@@ -39,4 +41,11 @@ public class BeerDTO {
   @Enumerated(EnumType.STRING)
   @NotNull
   private BeerType type;
+
+  @Min(0)
+  @Max(500)
+  private Integer reorderLevel;
+
+  @JsonIgnore
+  private Long version;
 }
@@ -0,0 +1,20 @@
+package ricardotenorio.github.com.beerstock.dto;
+
+import lombok.AllArgsConstructor;
+import lombok.Builder;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+@Data
+@Builder
+@NoArgsConstructor
+@AllArgsConstructor
+public class BeerImportRejectionDTO {
+
+  private Integer line;
+
+  private String name;
+
+  private String reason;
+
+}
@@ -0,0 +1,35 @@
+package ricardotenorio.github.com.beerstock.dto;
+
+import lombok.AllArgsConstructor;
+import lombok.Builder;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+import ricardotenorio.github.com.beerstock.enums.BeerType;
+
+import javax.validation.constraints.Min;
+import javax.validation.constraints.Size;
+
+@Data
+@Builder
+@NoArgsConstructor
+@AllArgsConstructor
+public class BeerSearchDTO {
+
+  private BeerType type;
+
+  @Size(min = 1, max = 200)
+  private String brand;
+
+  @Min(0)
+  private Integer minQuantity;
+
+  @Min(0)
+  private Integer maxQuantity;
+
+  @Min(0)
+  private Integer minMax;
+
+  @Min(0)
+  private Integer maxMax;
+
+}
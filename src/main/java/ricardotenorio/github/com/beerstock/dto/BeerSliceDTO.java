@@ -0,0 +1,20 @@
+package ricardotenorio.github.com.beerstock.dto;
+
+import lombok.AllArgsConstructor;
+import lombok.Builder;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import java.util.List;
+
+@Data
+@Builder
+@NoArgsConstructor
+@AllArgsConstructor
+public class BeerSliceDTO {
+
+  private List<BeerDTO> beers;
+
+  private Long nextCursor;
+
+}
@@ -0,0 +1,35 @@
+package ricardotenorio.github.com.beerstock.dto;
+
+import lombok.AllArgsConstructor;
+import lombok.Builder;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import java.util.List;
+
+@Data
+@Builder
+@NoArgsConstructor
+@AllArgsConstructor
+public class BeerStockDTO {
+
+  private Long id;
+
+  private String name;
+
+  private Integer max;
+
+  // stock held on the beer itself, outside any location
+  private Integer unassigned;
+
+  // unassigned units held by open reservations
+  private Integer reserved;
+
+  // unassigned units that can still be reserved or decremented
+  private Integer available;
+
+  private List<LocationStockDTO> locations;
+
+  private Long total;
+
+}
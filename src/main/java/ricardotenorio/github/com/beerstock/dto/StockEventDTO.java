@@ -0,0 +1,27 @@
+package ricardotenorio.github.com.beerstock.dto;
+
+import com.fasterxml.jackson.annotation.JsonInclude;
+import lombok.AllArgsConstructor;
+import lombok.Builder;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+import ricardotenorio.github.com.beerstock.enums.StockEventType;
+
+@Data
+@Builder
+@NoArgsConstructor
+@AllArgsConstructor
+@JsonInclude(JsonInclude.Include.NON_NULL)
+public class StockEventDTO {
+
+  private StockEventType type;
+
+  private Long id;
+
+  private String name;
+
+  private Integer quantity;
+
+  private Integer max;
+
+}
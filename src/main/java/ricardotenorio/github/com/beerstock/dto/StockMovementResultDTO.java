@@ -0,0 +1,24 @@
+package ricardotenorio.github.com.beerstock.dto;
+
+import lombok.AllArgsConstructor;
+import lombok.Builder;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+import ricardotenorio.github.com.beerstock.enums.StockMovementStatus;
+
+@Data
+@Builder
+@NoArgsConstructor
+@AllArgsConstructor
+public class StockMovementResultDTO {
+
+  private Long id;
+
+  private Integer delta;
+
+  private StockMovementStatus status;
+
+  // quantity right after this movement, only set when it was applied
+  private Integer quantity;
+
+}
@@ -9,12 +9,19 @@ import javax.persistence.*;
 
 @Data
 @Entity
+@Table(indexes = {
+    @Index(name = "idx_beer_reorder_headroom", columnList = "reorder_headroom"),
+    @Index(name = "idx_beer_type", columnList = "type"),
+    @Index(name = "idx_beer_brand", columnList = "brand"),
+    @Index(name = "idx_beer_quantity", columnList = "quantity")
+})
 @NoArgsConstructor
 @AllArgsConstructor
 public class Beer {
 
   @Id
-  @GeneratedValue(strategy = GenerationType.IDENTITY)
+  @GeneratedValue(strategy = GenerationType.SEQUENCE, generator = "beer_sequence")
+  @SequenceGenerator(name = "beer_sequence", sequenceName = "beer_sequence", allocationSize = 50)
   private Long id;
 
   @Column(nullable = false, unique = true)
@@ -29,7 +36,27 @@ public class Beer {
   @Column(nullable = false)
   private int quantity;
 
+  // units held by open reservations, always between 0 and quantity
+  @Column(nullable = false)
+  private int reserved;
+
+  @Column(nullable = false)
+  private int reorderLevel;
+
+  // quantity - reorderLevel, stored so that low stock is an index range scan
+  @Column(name = "reorder_headroom", nullable = false)
+  private int reorderHeadroom;
+
   @Enumerated(EnumType.STRING)
   @Column(nullable = false)
   private BeerType type;
+
+  @Version
+  private Long version;
+
+  @PrePersist
+  @PreUpdate
+  void updateReorderHeadroom() {
+    reorderHeadroom = quantity - reorderLevel;
+  }
 }
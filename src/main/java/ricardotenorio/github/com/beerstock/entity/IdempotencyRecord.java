@@ -0,0 +1,43 @@
+package ricardotenorio.github.com.beerstock.entity;
+
+import lombok.AllArgsConstructor;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import javax.persistence.*;
+import java.time.Instant;
+
+/**
+ * Response sent for a request carrying an {@code Idempotency-Key}, replayed
+ * to any retry of that request.
+ */
+@Data
+@Entity
+@Table(indexes = @Index(name = "idx_idempotency_record_created_at", columnList = "created_at"))
+@NoArgsConstructor
+@AllArgsConstructor
+public class IdempotencyRecord {
+
+  @Id
+  @Column(name = "idempotency_key")
+  // SHA-256 of the client identity and the key it sent
+  private String idempotencyKey;
+
+  @Column(nullable = false, length = 2048)
+  private String request;
+
+  @Column(nullable = false)
+  private int status;
+
+  private String contentType;
+
+  @Column(length = 2048)
+  // "Name: value" lines, one per header value
+  private String headers;
+
+  @Lob
+  private byte[] body;
+
+  @Column(name = "created_at", nullable = false)
+  private Instant createdAt;
+}
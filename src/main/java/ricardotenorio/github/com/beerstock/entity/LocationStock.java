@@ -0,0 +1,36 @@
+package ricardotenorio.github.com.beerstock.entity;
+
+import lombok.AllArgsConstructor;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import javax.persistence.*;
+
+/**
+ * Stock of one beer held at one location. Each location is its own row, so
+ * stock changes at different locations never wait on the same row lock.
+ */
+@Data
+@Entity
+@Table(uniqueConstraints = @UniqueConstraint(name = "uk_location_stock_beer_location",
+    columnNames = {"beer_id", "location"}))
+@NoArgsConstructor
+@AllArgsConstructor
+public class LocationStock {
+
+  @Id
+  @GeneratedValue(strategy = GenerationType.SEQUENCE, generator = "location_stock_sequence")
+  @SequenceGenerator(name = "location_stock_sequence", sequenceName = "location_stock_sequence",
+      allocationSize = 50)
+  private Long id;
+
+  @ManyToOne(fetch = FetchType.LAZY, optional = false)
+  @JoinColumn(name = "beer_id", nullable = false)
+  private Beer beer;
+
+  @Column(nullable = false)
+  private String location;
+
+  @Column(nullable = false)
+  private int quantity;
+}
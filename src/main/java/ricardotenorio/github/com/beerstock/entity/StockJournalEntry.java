@@ -0,0 +1,39 @@
+package ricardotenorio.github.com.beerstock.entity;
+
+import lombok.AllArgsConstructor;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import javax.persistence.*;
+import java.time.Instant;
+
+/**
+ * One stock movement of a beer. Rows are only ever inserted; the generation
+ * is stamped once, by the snapshot that folds the entry in.
+ */
+@Data
+@Entity
+@Table(name = "stock_journal",
+    indexes = @Index(name = "idx_stock_journal_generation", columnList = "generation"))
+@NoArgsConstructor
+@AllArgsConstructor
+public class StockJournalEntry {
+
+  @Id
+  @GeneratedValue(strategy = GenerationType.SEQUENCE, generator = "stock_journal_sequence")
+  @SequenceGenerator(name = "stock_journal_sequence", sequenceName = "stock_journal_sequence",
+      allocationSize = 50)
+  private Long id;
+
+  @Column(name = "beer_id", nullable = false)
+  private Long beerId;
+
+  @Column(nullable = false)
+  private int delta;
+
+  @Column(nullable = false)
+  private Instant recordedAt;
+
+  // null until a snapshot covers this entry
+  private Long generation;
+}
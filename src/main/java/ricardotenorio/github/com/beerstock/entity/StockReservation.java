@@ -0,0 +1,35 @@
+package ricardotenorio.github.com.beerstock.entity;
+
+import lombok.AllArgsConstructor;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import javax.persistence.*;
+import java.time.Instant;
+
+/**
+ * Units of a beer held for a while before they are committed as a decrement
+ * or released. The total per beer is kept in {@link Beer#getReserved()}.
+ */
+@Data
+@Entity
+@Table(indexes = @Index(name = "idx_stock_reservation_expires_at", columnList = "expires_at"))
+@NoArgsConstructor
+@AllArgsConstructor
+public class StockReservation {
+
+  @Id
+  @GeneratedValue(strategy = GenerationType.SEQUENCE, generator = "stock_reservation_sequence")
+  @SequenceGenerator(name = "stock_reservation_sequence", sequenceName = "stock_reservation_sequence",
+      allocationSize = 50)
+  private Long id;
+
+  @Column(name = "beer_id", nullable = false)
+  private Long beerId;
+
+  @Column(nullable = false)
+  private int quantity;
+
+  @Column(name = "expires_at", nullable = false)
+  private Instant expiresAt;
+}
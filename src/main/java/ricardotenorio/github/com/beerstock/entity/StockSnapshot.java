@@ -0,0 +1,38 @@
+package ricardotenorio.github.com.beerstock.entity;
+
+import lombok.AllArgsConstructor;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import javax.persistence.*;
+import java.time.Instant;
+
+/**
+ * Quantity of one beer after every journal entry stamped with
+ * {@code generation} or an earlier one.
+ */
+@Data
+@Entity
+@Table(indexes = @Index(name = "idx_stock_snapshot_generation", columnList = "generation"))
+@NoArgsConstructor
+@AllArgsConstructor
+public class StockSnapshot {
+
+  @Id
+  @GeneratedValue(strategy = GenerationType.SEQUENCE, generator = "stock_snapshot_sequence")
+  @SequenceGenerator(name = "stock_snapshot_sequence", sequenceName = "stock_snapshot_sequence",
+      allocationSize = 50)
+  private Long id;
+
+  @Column(nullable = false)
+  private long generation;
+
+  @Column(name = "beer_id", nullable = false)
+  private Long beerId;
+
+  @Column(nullable = false)
+  private int quantity;
+
+  @Column(nullable = false)
+  private Instant takenAt;
+}
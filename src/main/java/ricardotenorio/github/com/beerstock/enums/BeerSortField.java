@@ -0,0 +1,18 @@
+package ricardotenorio.github.com.beerstock.enums;
+
+import lombok.AllArgsConstructor;
+import lombok.Getter;
+
+@Getter
+@AllArgsConstructor
+public enum BeerSortField {
+
+  ID("id"),
+  NAME("name"),
+  BRAND("brand"),
+  TYPE("type"),
+  QUANTITY("quantity"),
+  MAX("max");
+
+  private final String property;
+}
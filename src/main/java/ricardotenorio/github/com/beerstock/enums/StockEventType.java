@@ -0,0 +1,17 @@
+package ricardotenorio.github.com.beerstock.enums;
+
+import lombok.AllArgsConstructor;
+import lombok.Getter;
+
+@Getter
+@AllArgsConstructor
+public enum StockEventType {
+
+  CREATED("Beer created"),
+  DELETED("Beer deleted"),
+  STOCK_CHANGED("Stock changed"),
+  LOW_STOCK("Stock dropped to the reorder level"),
+  NEAR_CAPACITY("Stock approached the maximum");
+
+  private final String description;
+}
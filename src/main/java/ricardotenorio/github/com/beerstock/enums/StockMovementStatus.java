@@ -0,0 +1,15 @@
+package ricardotenorio.github.com.beerstock.enums;
+
+import lombok.AllArgsConstructor;
+import lombok.Getter;
+
+@Getter
+@AllArgsConstructor
+public enum StockMovementStatus {
+
+  APPLIED("Applied"),
+  NOT_FOUND("Beer not found"),
+  STOCK_EXCEEDED("Would exceed stock");
+
+  private final String description;
+}
@@ -0,0 +1,13 @@
+package ricardotenorio.github.com.beerstock.exception;
+
+import org.springframework.http.HttpStatus;
+import org.springframework.web.bind.annotation.ResponseStatus;
+
+@ResponseStatus(HttpStatus.BAD_REQUEST)
+public class BeerImportException extends Exception {
+
+  public BeerImportException(String reason) {
+    super(String.format("Beer import rejected: %s", reason));
+  }
+
+}
@@ -0,0 +1,13 @@
+package ricardotenorio.github.com.beerstock.exception;
+
+import org.springframework.http.HttpStatus;
+import org.springframework.web.bind.annotation.ResponseStatus;
+
+@ResponseStatus(HttpStatus.CONFLICT)
+public class LocationStockUnavailableException extends Exception {
+
+  public LocationStockUnavailableException(Long id) {
+    super(String.format("Stock of beer with Id %s cannot be changed at a location while the stock ledger is enabled", id));
+  }
+
+}
@@ -0,0 +1,13 @@
+package ricardotenorio.github.com.beerstock.exception;
+
+import org.springframework.http.HttpStatus;
+import org.springframework.web.bind.annotation.ResponseStatus;
+
+@ResponseStatus(HttpStatus.SERVICE_UNAVAILABLE)
+public class StockQueueClosedException extends Exception {
+
+  public StockQueueClosedException(Long id) {
+    super(String.format("Stock changes for beer with Id %s are not accepted while shutting down", id));
+  }
+
+}
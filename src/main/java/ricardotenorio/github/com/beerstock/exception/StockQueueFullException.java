@@ -0,0 +1,13 @@
+package ricardotenorio.github.com.beerstock.exception;
+
+import org.springframework.http.HttpStatus;
+import org.springframework.web.bind.annotation.ResponseStatus;
+
+@ResponseStatus(HttpStatus.SERVICE_UNAVAILABLE)
+public class StockQueueFullException extends Exception {
+
+  public StockQueueFullException(Long id) {
+    super(String.format("Too many pending stock changes for beer with Id %s", id));
+  }
+
+}
@@ -0,0 +1,13 @@
+package ricardotenorio.github.com.beerstock.exception;
+
+import org.springframework.http.HttpStatus;
+import org.springframework.web.bind.annotation.ResponseStatus;
+
+@ResponseStatus(HttpStatus.NOT_FOUND)
+public class StockReservationNotFoundException extends Exception {
+
+  public StockReservationNotFoundException(Long id) {
+    super(String.format("Reservation with ID %s not found or expired", id));
+  }
+
+}
@@ -0,0 +1,13 @@
+package ricardotenorio.github.com.beerstock.exception;
+
+import org.springframework.http.HttpStatus;
+import org.springframework.web.bind.annotation.ResponseStatus;
+
+@ResponseStatus(HttpStatus.CONFLICT)
+public class StockReservationUnavailableException extends Exception {
+
+  public StockReservationUnavailableException(Long id) {
+    super(String.format("Beer with Id %s cannot be reserved while the stock ledger is enabled", id));
+  }
+
+}
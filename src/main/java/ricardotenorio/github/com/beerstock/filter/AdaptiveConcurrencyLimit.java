@@ -0,0 +1,63 @@
+package ricardotenorio.github.com.beerstock.filter;
+
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Bounds the requests in flight with a limit that adapts to latency: it grows
+ * by one while requests finish within the target and the limit is in use, and
+ * shrinks by a tenth, at most once per target window, when they do not.
+ */
+final class AdaptiveConcurrencyLimit {
+
+  private final int minLimit;
+  private final int maxLimit;
+  private final long targetLatencyNanos;
+  private final AtomicInteger limit;
+  private final AtomicInteger inFlight = new AtomicInteger();
+  private final AtomicLong lastDecreaseNanos;
+
+  AdaptiveConcurrencyLimit(int minLimit, int maxLimit, long targetLatencyNanos, long nowNanos) {
+    this.minLimit = minLimit;
+    this.maxLimit = maxLimit;
+    this.targetLatencyNanos = targetLatencyNanos;
+    this.limit = new AtomicInteger(maxLimit);
+    this.lastDecreaseNanos = new AtomicLong(nowNanos - targetLatencyNanos);
+  }
+
+  boolean tryAcquire() {
+    while (true) {
+      int current = inFlight.get();
+
+      if (current >= limit.get()) {
+        return false;
+      }
+      if (inFlight.compareAndSet(current, current + 1)) {
+        return true;
+      }
+    }
+  }
+
+  void release(long latencyNanos, long nowNanos) {
+    int current = inFlight.getAndDecrement();
+
+    if (latencyNanos > targetLatencyNanos) {
+      long last = lastDecreaseNanos.get();
+      // one decrease per window, so a burst of slow requests does not collapse the limit
+      if (nowNanos - last >= targetLatencyNanos && lastDecreaseNanos.compareAndSet(last, nowNanos)) {
+        limit.updateAndGet(value -> Math.max(minLimit, value - Math.max(1, value / 10)));
+      }
+    } else if (current * 2 >= limit.get()) {
+      limit.updateAndGet(value -> Math.min(maxLimit, value + 1));
+    }
+  }
+
+  int getLimit() {
+    return limit.get();
+  }
+
+  int getInFlight() {
+    return inFlight.get();
+  }
+
+}
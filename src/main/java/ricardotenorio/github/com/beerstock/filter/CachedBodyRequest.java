@@ -0,0 +1,83 @@
+package ricardotenorio.github.com.beerstock.filter;
+
+import org.springframework.util.StreamUtils;
+
+import javax.servlet.ReadListener;
+import javax.servlet.ServletInputStream;
+import javax.servlet.http.HttpServletRequest;
+import javax.servlet.http.HttpServletRequestWrapper;
+import java.io.BufferedReader;
+import java.io.ByteArrayInputStream;
+import java.io.IOException;
+import java.io.InputStreamReader;
+import java.nio.charset.Charset;
+import java.nio.charset.StandardCharsets;
+
+/**
+ * A request whose body is read up front, so it can be inspected before the
+ * handler reads it again, blocking or through a {@link ReadListener}.
+ */
+class CachedBodyRequest extends HttpServletRequestWrapper {
+
+  private final byte[] body;
+
+  CachedBodyRequest(HttpServletRequest request) throws IOException {
+    super(request);
+    this.body = StreamUtils.copyToByteArray(request.getInputStream());
+  }
+
+  byte[] getBody() {
+    return body;
+  }
+
+  @Override
+  public ServletInputStream getInputStream() {
+    ByteArrayInputStream input = new ByteArrayInputStream(body);
+
+    return new ServletInputStream() {
+
+      @Override
+      public boolean isFinished() {
+        return input.available() == 0;
+      }
+
+      @Override
+      public boolean isReady() {
+        return true;
+      }
+
+      @Override
+      public void setReadListener(ReadListener readListener) {
+        // the whole body is already in memory, so it is available right away
+        try {
+          readListener.onDataAvailable();
+          if (isFinished()) {
+            readListener.onAllDataRead();
+          }
+        } catch (IOException e) {
+          readListener.onError(e);
+        }
+      }
+
+      @Override
+      public int read() {
+        return input.read();
+      }
+
+      @Override
+      public int read(byte[] buffer, int offset, int length) {
+        return input.read(buffer, offset, length);
+      }
+
+    };
+  }
+
+  @Override
+  public BufferedReader getReader() {
+    String encoding = getCharacterEncoding();
+
+    return new BufferedReader(new InputStreamReader(getInputStream(),
+        encoding != null ? Charset.forName(encoding) : StandardCharsets.UTF_8));
+  }
+
+}
@@ -0,0 +1,35 @@
+package ricardotenorio.github.com.beerstock.filter;
+
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+
+import javax.servlet.http.HttpServletRequest;
+import java.util.Set;
+
+/**
+ * Who sent a request: its {@code X-API-Key} header when that is one of the
+ * keys configured in {@code beerstock.clients.api-keys}, or else its address.
+ *
+ * <p>The header is not authenticated, so an unknown key is ignored rather
+ * than trusted: otherwise a client could rotate keys to get a fresh rate
+ * limit bucket on every request, and flood the bucket cache until the
+ * buckets of legitimate clients were evicted.
+ */
+@Component
+public class ClientIdentity {
+
+  private final Set<String> apiKeys;
+
+  @Autowired
+  public ClientIdentity(@Value("${beerstock.clients.api-keys:}") Set<String> apiKeys) {
+    this.apiKeys = Set.copyOf(apiKeys);
+  }
+
+  String of(HttpServletRequest request) {
+    String apiKey = request.getHeader(RateLimitFilter.API_KEY_HEADER);
+
+    return apiKey != null && apiKeys.contains(apiKey) ? apiKey : request.getRemoteAddr();
+  }
+
+}
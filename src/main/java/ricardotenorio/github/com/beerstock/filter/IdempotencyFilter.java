@@ -0,0 +1,214 @@
+package ricardotenorio.github.com.beerstock.filter;
+
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.core.annotation.Order;
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.HttpStatus;
+import org.springframework.stereotype.Component;
+import org.springframework.web.filter.OncePerRequestFilter;
+import org.springframework.web.util.ContentCachingResponseWrapper;
+import org.springframework.web.util.WebUtils;
+import ricardotenorio.github.com.beerstock.entity.IdempotencyRecord;
+import ricardotenorio.github.com.beerstock.service.IdempotencyStore;
+
+import javax.servlet.FilterChain;
+import javax.servlet.ServletException;
+import javax.servlet.http.HttpServletRequest;
+import javax.servlet.http.HttpServletResponse;
+import java.io.IOException;
+import java.math.BigInteger;
+import java.nio.charset.StandardCharsets;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.time.Instant;
+import java.util.Set;
+import java.util.StringJoiner;
+
+/**
+ * Makes POST and PATCH requests on the beer API safe to retry.
+ *
+ * <p>The first request with a given {@code Idempotency-Key} runs and its
+ * response is recorded; a retry gets the recorded response back, marked with
+ * {@code Idempotent-Replayed}, without running again. A retry arriving while
+ * the first request still runs gets {@code 409}, and a key reused for another
+ * request gets {@code 422}. Server errors and rate-limit rejections are not
+ * recorded, so retrying them runs the request. A replay carries the recorded
+ * headers too, such as {@code ETag} and {@code Location}, but not those
+ * describing the transfer, which the container sets again.
+ *
+ * <p>A request is identified by its method, URI, query string and a SHA-256
+ * of its body. Keys are scoped to the client, as identified by the rate
+ * limiter, so two clients choosing the same key never see each other's
+ * responses.
+ *
+ * <p>The filter runs after {@link RateLimitFilter}, so replays are charged
+ * against the client's budget.
+ */
+@Component
+@Order(RateLimitFilter.ORDER + 1)
+public class IdempotencyFilter extends OncePerRequestFilter {
+
+  public static final String IDEMPOTENCY_KEY_HEADER = "Idempotency-Key";
+  public static final String REPLAYED_HEADER = "Idempotent-Replayed";
+
+  private static final String API_PATH = "/api/v1/beers";
+  private static final int MAX_KEY_LENGTH = 255;
+  private static final String SCOPED_KEY_ATTRIBUTE = IdempotencyFilter.class.getName() + ".scopedKey";
+  private static final String FINGERPRINT_ATTRIBUTE = IdempotencyFilter.class.getName() + ".fingerprint";
+  private static final Set<String> UNRECORDED_HEADERS = Set.of(HttpHeaders.CONTENT_LENGTH.toLowerCase(),
+      HttpHeaders.CONTENT_TYPE.toLowerCase(), HttpHeaders.TRANSFER_ENCODING.toLowerCase(),
+      HttpHeaders.CONNECTION.toLowerCase(), HttpHeaders.DATE.toLowerCase(), HttpHeaders.SET_COOKIE.toLowerCase());
+
+  private final IdempotencyStore idempotencyStore;
+  private final ClientIdentity clientIdentity;
+
+  @Autowired
+  public IdempotencyFilter(IdempotencyStore idempotencyStore, ClientIdentity clientIdentity) {
+    this.idempotencyStore = idempotencyStore;
+    this.clientIdentity = clientIdentity;
+  }
+
+  @Override
+  protected boolean shouldNotFilter(HttpServletRequest request) {
+    String method = request.getMethod();
+
+    return !("POST".equals(method) || "PATCH".equals(method))
+        || request.getHeader(IDEMPOTENCY_KEY_HEADER) == null
+        || !request.getServletPath().startsWith(API_PATH);
+  }
+
+  @Override
+  protected boolean shouldNotFilterAsyncDispatch() {
+    // asynchronous handlers complete their response in the async dispatch
+    return false;
+  }
+
+  @Override
+  protected void doFilterInternal(HttpServletRequest request, HttpServletResponse response,
+      FilterChain filterChain) throws ServletException, IOException {
+    String key;
+    String requestLine;
+    HttpServletRequest requestToUse = request;
+    HttpServletResponse responseToUse = response;
+
+    if (isAsyncDispatch(request)) {
+      // the async dispatch carries on with what the initial dispatch worked out
+      key = (String) request.getAttribute(SCOPED_KEY_ATTRIBUTE);
+      requestLine = (String) request.getAttribute(FINGERPRINT_ATTRIBUTE);
+    } else {
+      String clientKey = request.getHeader(IDEMPOTENCY_KEY_HEADER);
+      if (clientKey.isEmpty() || clientKey.length() > MAX_KEY_LENGTH) {
+        response.setStatus(HttpStatus.BAD_REQUEST.value());
+        return;
+      }
+
+      CachedBodyRequest cachedBodyRequest = new CachedBodyRequest(request);
+      key = sha256Hex((clientIdentity.of(request) + "\n" + clientKey).getBytes(StandardCharsets.UTF_8));
+      requestLine = fingerprintOf(request, cachedBodyRequest.getBody());
+      request.setAttribute(SCOPED_KEY_ATTRIBUTE, key);
+      request.setAttribute(FINGERPRINT_ATTRIBUTE, requestLine);
+
+      IdempotencyRecord record = idempotencyStore.find(key);
+      if (record == null) {
+        if (!idempotencyStore.begin(key)) {
+          response.setStatus(HttpStatus.CONFLICT.value());
+          return;
+        }
+        record = idempotencyStore.findCompleted(key);
+        if (record != null) {
+          idempotencyStore.abandon(key);
+        }
+      }
+
+      if (record != null) {
+        replay(record, requestLine, response);
+        return;
+      }
+      requestToUse = cachedBodyRequest;
+      responseToUse = new ContentCachingResponseWrapper(response);
+    }
+
+    boolean handled = false;
+    try {
+      filterChain.doFilter(requestToUse, responseToUse);
+      handled = true;
+    } finally {
+      if (!handled) {
+        idempotencyStore.abandon(key);
+      } else if (!isAsyncStarted(request)) {
+        complete(key, requestLine, responseToUse);
+      }
+    }
+  }
+
+  private void complete(String key, String requestLine, HttpServletResponse response) throws IOException {
+    ContentCachingResponseWrapper cachingResponse =
+        WebUtils.getNativeResponse(response, ContentCachingResponseWrapper.class);
+    int status = cachingResponse.getStatus();
+
+    if (status < HttpStatus.INTERNAL_SERVER_ERROR.value() && status != HttpStatus.TOO_MANY_REQUESTS.value()) {
+      idempotencyStore.complete(new IdempotencyRecord(key, requestLine, status, cachingResponse.getContentType(),
+          headersOf(cachingResponse), cachingResponse.getContentAsByteArray(), Instant.now()));
+    } else {
+      idempotencyStore.abandon(key);
+    }
+    cachingResponse.copyBodyToResponse();
+  }
+
+  private static String headersOf(HttpServletResponse response) {
+    StringJoiner headers = new StringJoiner("\n");
+
+    for (String name : response.getHeaderNames()) {
+      if (!UNRECORDED_HEADERS.contains(name.toLowerCase())) {
+        for (String value : response.getHeaders(name)) {
+          headers.add(name + ": " + value);
+        }
+      }
+    }
+
+    return headers.length() > 0 ? headers.toString() : null;
+  }
+
+  private static String fingerprintOf(HttpServletRequest request, byte[] body) {
+    String query = request.getQueryString();
+
+    return request.getMethod() + " " + request.getRequestURI() + (query != null ? "?" + query : "")
+        + " " + sha256Hex(body);
+  }
+
+  private static String sha256Hex(byte[] bytes) {
+    try {
+      byte[] digest = MessageDigest.getInstance("SHA-256").digest(bytes);
+
+      return String.format("%064x", new BigInteger(1, digest));
+    } catch (NoSuchAlgorithmException e) {
+      // every Java platform is required to support SHA-256
+      throw new IllegalStateException(e);
+    }
+  }
+
+  private static void replay(IdempotencyRecord record, String requestLine, HttpServletResponse response)
+      throws IOException {
+    if (!record.getRequest().equals(requestLine)) {
+      response.setStatus(HttpStatus.UNPROCESSABLE_ENTITY.value());
+      return;
+    }
+
+    response.setStatus(record.getStatus());
+    if (record.getHeaders() != null) {
+      for (String header : record.getHeaders().split("\n")) {
+        int colon = header.indexOf(':');
+        response.addHeader(header.substring(0, colon), header.substring(colon + 2));
+      }
+    }
+    response.setHeader(REPLAYED_HEADER, "true");
+    if (record.getContentType() != null) {
+      response.setContentType(record.getContentType());
+    }
+    if (record.getBody() != null) {
+      response.setContentLength(record.getBody().length);
+      response.getOutputStream().write(record.getBody());
+    }
+  }
+
+}
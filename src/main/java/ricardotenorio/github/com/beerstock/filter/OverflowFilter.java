@@ -0,0 +1,75 @@
+package ricardotenorio.github.com.beerstock.filter;
+
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.MeterRegistry;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.core.Ordered;
+import org.springframework.core.annotation.Order;
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.HttpStatus;
+import org.springframework.stereotype.Component;
+import org.springframework.web.filter.OncePerRequestFilter;
+
+import javax.servlet.FilterChain;
+import javax.servlet.ServletException;
+import javax.servlet.http.HttpServletRequest;
+import javax.servlet.http.HttpServletResponse;
+import java.io.IOException;
+
+/**
+ * Answers {@code 503} with a {@code Retry-After} for requests that arrived
+ * while the bounded request executor was full.
+ *
+ * <p>Tomcat closes the connection when its executor rejects a socket, so
+ * {@code ExecutionConfig} hands those sockets to a small overflow pool
+ * instead, through {@link #runAsOverflow(Runnable)}. Tomcat still parses the
+ * request there, but this filter, first in the chain, ends it before any
+ * application work. Rejections are counted in
+ * {@code beerstock.requests.rejected}.
+ */
+@Component
+@Order(Ordered.HIGHEST_PRECEDENCE)
+@ConditionalOnProperty(name = "beerstock.execution.mode", havingValue = "bounded")
+public class OverflowFilter extends OncePerRequestFilter {
+
+  private static final ThreadLocal<Boolean> OVERFLOW = new ThreadLocal<>();
+
+  private final Counter rejected;
+
+  @Autowired
+  public OverflowFilter(MeterRegistry meterRegistry) {
+    this.rejected = Counter.builder("beerstock.requests.rejected")
+        .tag("reason", "executor-full")
+        .tag("budget", "any")
+        .register(meterRegistry);
+  }
+
+  /**
+   * Runs a socket task the request executor had no room for, so that the
+   * requests it dispatches are rejected.
+   */
+  public static void runAsOverflow(Runnable task) {
+    OVERFLOW.set(Boolean.TRUE);
+    try {
+      task.run();
+    } finally {
+      OVERFLOW.remove();
+    }
+  }
+
+  @Override
+  protected void doFilterInternal(HttpServletRequest request, HttpServletResponse response,
+      FilterChain filterChain) throws ServletException, IOException {
+    if (OVERFLOW.get() == null) {
+      filterChain.doFilter(request, response);
+      return;
+    }
+
+    rejected.increment();
+    // status only: no body to render and no error page dispatch
+    response.setStatus(HttpStatus.SERVICE_UNAVAILABLE.value());
+    response.setHeader(HttpHeaders.RETRY_AFTER, "1");
+  }
+
+}
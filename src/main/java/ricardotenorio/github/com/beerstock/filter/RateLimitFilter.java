@@ -0,0 +1,206 @@
+package ricardotenorio.github.com.beerstock.filter;
+
+import com.github.benmanes.caffeine.cache.Cache;
+import com.github.benmanes.caffeine.cache.Caffeine;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.MeterRegistry;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.core.Ordered;
+import org.springframework.core.annotation.Order;
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.HttpStatus;
+import org.springframework.stereotype.Component;
+import org.springframework.web.filter.OncePerRequestFilter;
+
+import javax.servlet.AsyncEvent;
+import javax.servlet.AsyncListener;
+import javax.servlet.FilterChain;
+import javax.servlet.ServletException;
+import javax.servlet.http.HttpServletRequest;
+import javax.servlet.http.HttpServletResponse;
+import java.io.IOException;
+import java.time.Duration;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicBoolean;
+
+/**
+ * Guards the beer API in front of the controller.
+ *
+ * <p>Each client, as told apart by {@link ClientIdentity}, has one token bucket for reads and another for stock mutations;
+ * an empty bucket answers {@code 429} with a {@code Retry-After}. Buckets
+ * live in a bounded Caffeine cache, so idle clients are evicted. Requests
+ * that pass are then held to an {@link AdaptiveConcurrencyLimit}, and the
+ * excess is shed with {@code 503}. Both rejections are decided in memory,
+ * before any database work, and counted in {@code beerstock.requests.rejected}.
+ *
+ * <p>An asynchronous request keeps its concurrency slot until the async
+ * processing completes, errors or times out, so the latency fed to the limit
+ * covers the whole request and not just the servlet thread's part. The stock
+ * event stream stays open for as long as a subscriber listens, so it is only
+ * rate limited.
+ *
+ * <p>The filter runs before {@link IdempotencyFilter}, so a replayed response
+ * is charged like any other request: a client retrying in a loop is
+ * throttled, and the idempotency store is shielded as much as the handlers.
+ */
+@Component
+@Order(RateLimitFilter.ORDER)
+public class RateLimitFilter extends OncePerRequestFilter {
+
+  public static final int ORDER = Ordered.HIGHEST_PRECEDENCE + 10;
+
+  public static final String API_KEY_HEADER = "X-API-Key";
+
+  private static final String API_PATH = "/api/v1/beers";
+  private static final String STOCK_EVENTS_PATH = API_PATH + "/stock-events";
+  private static final int BURST_SECONDS = 2;
+
+  private final ClientIdentity clientIdentity;
+  private final boolean enabled;
+  private final double readsPerSecond;
+  private final double mutationsPerSecond;
+  private final Cache<String, TokenBucket> buckets;
+  private final AdaptiveConcurrencyLimit concurrencyLimit;
+  private final Counter readsRejected;
+  private final Counter mutationsRejected;
+  private final Counter shed;
+
+  @Autowired
+  public RateLimitFilter(MeterRegistry meterRegistry, ClientIdentity clientIdentity,
+      @Value("${beerstock.rate-limit.enabled:true}") boolean enabled,
+      @Value("${beerstock.rate-limit.reads-per-second:100}") double readsPerSecond,
+      @Value("${beerstock.rate-limit.mutations-per-second:20}") double mutationsPerSecond,
+      @Value("${beerstock.rate-limit.max-clients:100000}") long maxClients,
+      @Value("${beerstock.concurrency-limit.min:10}") int minConcurrency,
+      @Value("${beerstock.concurrency-limit.max:400}") int maxConcurrency,
+      @Value("${beerstock.concurrency-limit.target-latency-ms:250}") long targetLatencyMs) {
+    this.clientIdentity = clientIdentity;
+    this.enabled = enabled;
+    this.readsPerSecond = readsPerSecond;
+    this.mutationsPerSecond = mutationsPerSecond;
+    this.buckets = Caffeine.newBuilder()
+        .maximumSize(maxClients)
+        .expireAfterAccess(Duration.ofMinutes(10))
+        .build();
+    this.concurrencyLimit = new AdaptiveConcurrencyLimit(minConcurrency, maxConcurrency,
+        TimeUnit.MILLISECONDS.toNanos(targetLatencyMs), System.nanoTime());
+    this.readsRejected = rejectedCounter(meterRegistry, "rate-limit", "read");
+    this.mutationsRejected = rejectedCounter(meterRegistry, "rate-limit", "mutation");
+    this.shed = rejectedCounter(meterRegistry, "overload", "any");
+
+    meterRegistry.gauge("beerstock.concurrency.limit", concurrencyLimit, AdaptiveConcurrencyLimit::getLimit);
+    meterRegistry.gauge("beerstock.concurrency.in-flight", concurrencyLimit, AdaptiveConcurrencyLimit::getInFlight);
+    meterRegistry.gauge("beerstock.rate-limit.clients", buckets, Cache::estimatedSize);
+  }
+
+  @Override
+  protected boolean shouldNotFilter(HttpServletRequest request) {
+    return !enabled || !request.getServletPath().startsWith(API_PATH);
+  }
+
+  @Override
+  protected void doFilterInternal(HttpServletRequest request, HttpServletResponse response,
+      FilterChain filterChain) throws ServletException, IOException {
+    boolean mutation = isMutation(request.getMethod());
+    double permitsPerSecond = mutation ? mutationsPerSecond : readsPerSecond;
+    String key = (mutation ? "mutation:" : "read:") + clientIdentity.of(request);
+    long now = System.nanoTime();
+
+    TokenBucket bucket = buckets.get(key, ignored ->
+        new TokenBucket(permitsPerSecond, (int) Math.ceil(permitsPerSecond * BURST_SECONDS), now));
+    long waitNanos = bucket.tryAcquire(now);
+    if (waitNanos > 0) {
+      (mutation ? mutationsRejected : readsRejected).increment();
+      reject(response, HttpStatus.TOO_MANY_REQUESTS, waitNanos);
+      return;
+    }
+
+    if (STOCK_EVENTS_PATH.equals(request.getServletPath())) {
+      filterChain.doFilter(request, response);
+      return;
+    }
+
+    if (!concurrencyLimit.tryAcquire()) {
+      shed.increment();
+      reject(response, HttpStatus.SERVICE_UNAVAILABLE, TimeUnit.SECONDS.toNanos(1));
+      return;
+    }
+
+    ConcurrencySlot slot = new ConcurrencySlot(System.nanoTime());
+    boolean asyncStarted = false;
+    try {
+      filterChain.doFilter(request, response);
+      if (request.isAsyncStarted()) {
+        request.getAsyncContext().addListener(slot);
+        asyncStarted = true;
+      }
+    } finally {
+      if (!asyncStarted) {
+        slot.release();
+      }
+    }
+  }
+
+  private static boolean isMutation(String method) {
+    return !("GET".equals(method) || "HEAD".equals(method) || "OPTIONS".equals(method));
+  }
+
+  private static void reject(HttpServletResponse response, HttpStatus status, long retryAfterNanos) {
+    // status only: no body to render and no error page dispatch
+    response.setStatus(status.value());
+    response.setHeader(HttpHeaders.RETRY_AFTER,
+        String.valueOf(TimeUnit.NANOSECONDS.toSeconds(retryAfterNanos) + 1));
+  }
+
+  /**
+   * One acquired slot of the concurrency limit, released exactly once: when
+   * the filter chain returns, or for an async request when it ends.
+   */
+  private class ConcurrencySlot implements AsyncListener {
+
+    private final long start;
+    private final AtomicBoolean released = new AtomicBoolean();
+
+    ConcurrencySlot(long start) {
+      this.start = start;
+    }
+
+    void release() {
+      if (released.compareAndSet(false, true)) {
+        long end = System.nanoTime();
+        concurrencyLimit.release(end - start, end);
+      }
+    }
+
+    @Override
+    public void onComplete(AsyncEvent event) {
+      release();
+    }
+
+    @Override
+    public void onTimeout(AsyncEvent event) {
+      release();
+    }
+
+    @Override
+    public void onError(AsyncEvent event) {
+      release();
+    }
+
+    @Override
+    public void onStartAsync(AsyncEvent event) {
+      // a restarted async cycle drops its listeners, so register again
+      event.getAsyncContext().addListener(this);
+    }
+
+  }
+
+  private static Counter rejectedCounter(MeterRegistry meterRegistry, String reason, String budget) {
+    return Counter.builder("beerstock.requests.rejected")
+        .tag("reason", reason)
+        .tag("budget", budget)
+        .register(meterRegistry);
+  }
+
+}
@@ -0,0 +1,44 @@
+package ricardotenorio.github.com.beerstock.filter;
+
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Token bucket kept as a single theoretical arrival time (the generic cell
+ * rate algorithm): taking a token is one compare-and-set, and an idle bucket
+ * refills without any timer or per-tick work.
+ */
+final class TokenBucket {
+
+  private final long intervalNanos;
+  private final long burstNanos;
+  private final AtomicLong theoreticalArrival;
+
+  TokenBucket(double permitsPerSecond, int burst, long nowNanos) {
+    this.intervalNanos = (long) (TimeUnit.SECONDS.toNanos(1) / permitsPerSecond);
+    this.burstNanos = intervalNanos * burst;
+    this.theoreticalArrival = new AtomicLong(nowNanos);
+  }
+
+  /**
+   * Takes a token if one is available.
+   *
+   * @return {@code 0} when a token was taken, otherwise the nanoseconds until
+   * the next one is
+   */
+  long tryAcquire(long nowNanos) {
+    while (true) {
+      long current = theoreticalArrival.get();
+      long next = Math.max(current, nowNanos) + intervalNanos;
+      long wait = next - nowNanos - burstNanos;
+
+      if (wait > 0) {
+        return wait;
+      }
+      if (theoreticalArrival.compareAndSet(current, next)) {
+        return 0;
+      }
+    }
+  }
+
+}
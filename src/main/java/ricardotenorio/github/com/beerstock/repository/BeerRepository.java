@@ -1,11 +1,97 @@
 package ricardotenorio.github.com.beerstock.repository;
 
+import org.springframework.data.domain.Pageable;
+import org.springframework.data.domain.Slice;
 import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.JpaSpecificationExecutor;
+import org.springframework.data.jpa.repository.Lock;
+import org.springframework.data.jpa.repository.Modifying;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.jpa.repository.QueryHints;
+import org.springframework.data.repository.query.Param;
+import org.springframework.transaction.annotation.Transactional;
+import ricardotenorio.github.com.beerstock.dto.BeerDTO;
 import ricardotenorio.github.com.beerstock.entity.Beer;
 
+import javax.persistence.LockModeType;
+import javax.persistence.QueryHint;
+import java.util.Collection;
+import java.util.List;
 import java.util.Optional;
+import java.util.stream.Stream;
 
-public interface BeerRepository extends JpaRepository<Beer, Long> {
+public interface BeerRepository extends JpaRepository<Beer, Long>, JpaSpecificationExecutor<Beer> {
+
+  // selects straight into BeerDTO, skipping entity hydration and dirty-checking snapshots;
+  // arguments follow the field order of BeerDTO's all-args constructor
+  String SELECT_BEER_DTO = "select new ricardotenorio.github.com.beerstock.dto.BeerDTO("
+      + "b.id, b.name, b.brand, b.max, b.quantity, b.type, b.reorderLevel, b.version) from Beer b";
 
   Optional<Beer> findByName(String name);
+
+  @Lock(LockModeType.PESSIMISTIC_WRITE)
+  @Query("select b from Beer b where b.id = :id")
+  Optional<Beer> findByIdForUpdate(@Param("id") Long id);
+
+  @Transactional(readOnly = true)
+  @Query(SELECT_BEER_DTO + " where b.name = :name")
+  Optional<BeerDTO> findDTOByName(@Param("name") String name);
+
+  @Transactional(readOnly = true)
+  @Query(SELECT_BEER_DTO)
+  List<BeerDTO> findAllDTOs();
+
+  Slice<Beer> findBy(Pageable pageable);
+
+  List<Beer> findByIdGreaterThanOrderByIdAsc(Long id, Pageable pageable);
+
+  List<Beer> findByReorderHeadroomLessThanEqualOrderByReorderHeadroomAsc(int reorderHeadroom,
+      Pageable pageable);
+
+  @QueryHints(@QueryHint(name = org.hibernate.jpa.QueryHints.HINT_FETCH_SIZE, value = "500"))
+  @Query(SELECT_BEER_DTO + " order by b.id")
+  Stream<BeerDTO> streamAllDTOsByOrderByIdAsc();
+
+  @Query("select b.name from Beer b where b.name in :names")
+  List<String> findExistingNames(@Param("names") Collection<String> names);
+
+  @Query("select b.id, b.quantity from Beer b")
+  List<Object[]> findAllQuantities();
+
+  @Query("select b.type, sum(b.quantity) from Beer b group by b.type")
+  List<Object[]> sumQuantityByType();
+
+  @Query("select b.id from Beer b where b.id in :ids")
+  List<Long> findExistingIds(@Param("ids") Collection<Long> ids);
+
+  // native so the location subquery can reference the updated row; the max covers
+  // the beer's own quantity plus whatever is stocked at its locations, and only
+  // increments pay for that subquery, an index range scan on the beer's location rows
+  @Transactional
+  @Modifying(clearAutomatically = true)
+  @Query(value = "update beer set quantity = quantity + :delta,"
+      + " reorder_headroom = reorder_headroom + :delta, version = version + 1"
+      + " where id = :id and quantity + :delta >= reserved and (:delta <= 0 or quantity + :delta"
+      + " + (select coalesce(sum(s.quantity), 0) from location_stock s where s.beer_id = beer.id) <= max)",
+      nativeQuery = true)
+  int addQuantityWithinStock(@Param("id") Long id, @Param("delta") int delta);
+
+  @Transactional
+  @Modifying
+  @Query("update Beer b set b.reserved = b.reserved + :quantity"
+      + " where b.id = :id and b.quantity - b.reserved >= :quantity")
+  int reserveWithinStock(@Param("id") Long id, @Param("quantity") int quantity);
+
+  @Transactional
+  @Modifying(clearAutomatically = true)
+  @Query("update Beer b set b.quantity = b.quantity - :quantity, b.reserved = b.reserved - :quantity,"
+      + " b.reorderHeadroom = b.reorderHeadroom - :quantity, b.version = b.version + 1"
+      + " where b.id = :id and b.reserved >= :quantity")
+  int commitReserved(@Param("id") Long id, @Param("quantity") int quantity);
+
+  @Transactional
+  @Modifying
+  @Query("update Beer b set b.reserved = b.reserved - :quantity"
+      + " where b.id = :id and b.reserved >= :quantity")
+  int releaseReserved(@Param("id") Long id, @Param("quantity") int quantity);
 }
@@ -0,0 +1,57 @@
+package ricardotenorio.github.com.beerstock.repository;
+
+import org.springframework.data.jpa.domain.Specification;
+import ricardotenorio.github.com.beerstock.dto.BeerSearchDTO;
+import ricardotenorio.github.com.beerstock.entity.Beer;
+import ricardotenorio.github.com.beerstock.enums.BeerType;
+
+/**
+ * Search predicates on {@link Beer}. Every criterion maps to an indexed
+ * column, and the brand only matches by prefix so the index stays usable.
+ */
+public final class BeerSpecifications {
+
+  private static final char LIKE_ESCAPE = '\\';
+
+  private BeerSpecifications() {
+  }
+
+  public static Specification<Beer> matching(BeerSearchDTO search) {
+    return Specification.where(hasType(search.getType()))
+        .and(brandStartsWith(search.getBrand()))
+        .and(between("quantity", search.getMinQuantity(), search.getMaxQuantity()))
+        .and(between("max", search.getMinMax(), search.getMaxMax()));
+  }
+
+  public static Specification<Beer> hasType(BeerType type) {
+    return type == null ? null : (root, query, cb) -> cb.equal(root.get("type"), type);
+  }
+
+  public static Specification<Beer> brandStartsWith(String prefix) {
+    if (prefix == null) {
+      return null;
+    }
+
+    String pattern = prefix.replace("\\", "\\\\")
+        .replace("%", "\\%")
+        .replace("_", "\\_") + "%";
+    return (root, query, cb) -> cb.like(root.get("brand"), pattern, LIKE_ESCAPE);
+  }
+
+  private static Specification<Beer> between(String attribute, Integer min, Integer max) {
+    if (min == null && max == null) {
+      return null;
+    }
+
+    return (root, query, cb) -> {
+      if (min == null) {
+        return cb.le(root.get(attribute), max);
+      }
+      if (max == null) {
+        return cb.ge(root.get(attribute), min);
+      }
+      return cb.between(root.get(attribute), min, max);
+    };
+  }
+
+}
@@ -0,0 +1,18 @@
+package ricardotenorio.github.com.beerstock.repository;
+
+import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Modifying;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
+import org.springframework.transaction.annotation.Transactional;
+import ricardotenorio.github.com.beerstock.entity.IdempotencyRecord;
+
+import java.time.Instant;
+
+public interface IdempotencyRecordRepository extends JpaRepository<IdempotencyRecord, String> {
+
+  @Transactional
+  @Modifying
+  @Query("delete from IdempotencyRecord r where r.createdAt < :createdAt")
+  int deleteOlderThan(@Param("createdAt") Instant createdAt);
+}
@@ -0,0 +1,39 @@
+package ricardotenorio.github.com.beerstock.repository;
+
+import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Modifying;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
+import org.springframework.transaction.annotation.Transactional;
+import ricardotenorio.github.com.beerstock.entity.LocationStock;
+
+import java.util.List;
+import java.util.Optional;
+
+public interface LocationStockRepository extends JpaRepository<LocationStock, Long> {
+
+  Optional<LocationStock> findByBeerIdAndLocation(Long beerId, String location);
+
+  List<LocationStock> findByBeerIdOrderByLocationAsc(Long beerId);
+
+  @Query("select coalesce(sum(s.quantity), 0) from LocationStock s where s.beer.id = :beerId")
+  long sumQuantityByBeerId(@Param("beerId") Long beerId);
+
+  @Query("select s.beer.id, sum(s.quantity) from LocationStock s group by s.beer.id")
+  List<Object[]> sumQuantityByBeer();
+
+  @Query("select s.beer.type, sum(s.quantity) from LocationStock s group by s.beer.type")
+  List<Object[]> sumQuantityByType();
+
+  @Transactional
+  @Modifying(clearAutomatically = true)
+  @Query("update LocationStock s set s.quantity = s.quantity + :delta"
+      + " where s.beer.id = :beerId and s.location = :location and s.quantity + :delta >= 0")
+  int addQuantityAtLocation(@Param("beerId") Long beerId, @Param("location") String location,
+      @Param("delta") int delta);
+
+  @Transactional
+  @Modifying
+  @Query("delete from LocationStock s where s.beer.id = :beerId")
+  int deleteByBeerId(@Param("beerId") Long beerId);
+}
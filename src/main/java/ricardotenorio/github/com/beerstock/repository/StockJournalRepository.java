@@ -0,0 +1,29 @@
+package ricardotenorio.github.com.beerstock.repository;
+
+import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Modifying;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
+import org.springframework.transaction.annotation.Transactional;
+import ricardotenorio.github.com.beerstock.entity.StockJournalEntry;
+
+import java.util.List;
+
+public interface StockJournalRepository extends JpaRepository<StockJournalEntry, Long> {
+
+  @Query("select coalesce(max(e.generation), 0) from StockJournalEntry e")
+  long findLastGeneration();
+
+  @Transactional
+  @Modifying
+  @Query("update StockJournalEntry e set e.generation = :generation where e.generation is null")
+  int markGeneration(@Param("generation") long generation);
+
+  @Query("select e.beerId, sum(e.delta) from StockJournalEntry e"
+      + " where e.generation = :generation group by e.beerId")
+  List<Object[]> sumDeltasByGeneration(@Param("generation") long generation);
+
+  @Query("select e.beerId, sum(e.delta) from StockJournalEntry e"
+      + " where e.generation is null group by e.beerId")
+  List<Object[]> sumUnsnapshottedDeltas();
+}
@@ -0,0 +1,79 @@
+package ricardotenorio.github.com.beerstock.repository;
+
+import lombok.AllArgsConstructor;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.jdbc.core.BatchPreparedStatementSetter;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.stereotype.Repository;
+import ricardotenorio.github.com.beerstock.dto.StockMovementDTO;
+
+import java.sql.PreparedStatement;
+import java.sql.SQLException;
+import java.util.List;
+
+/**
+ * Applies many stock movements as one JDBC batch. Uses the same guard as
+ * {@link BeerRepository#addQuantityWithinStock(Long, int)}, reserved units
+ * and stock held at locations included, so each returned
+ * update count is 1 when the line was applied and 0 when it was rejected.
+ *
+ * <p>{@link #addQuantities(List)} skips the guard; it writes back deltas that
+ * {@code StockLedger} has already checked against the same bounds.
+ */
+@Repository
+@AllArgsConstructor(onConstructor = @__(@Autowired))
+public class StockMovementRepository {
+
+  private static final String ADD_QUANTITY_WITHIN_STOCK_SQL =
+      "update beer set quantity = quantity + ?, reorder_headroom = reorder_headroom + ?,"
+          + " version = version + 1 where id = ? and quantity + ? >= reserved and (? <= 0 or quantity + ?"
+          + " + (select coalesce(sum(s.quantity), 0) from location_stock s where s.beer_id = beer.id) <= max)";
+
+  private static final String ADD_QUANTITY_SQL =
+      "update beer set quantity = quantity + ?, reorder_headroom = reorder_headroom + ?,"
+          + " version = version + 1 where id = ?";
+
+  private final JdbcTemplate jdbcTemplate;
+
+  public int[] addQuantitiesWithinStock(List<StockMovementDTO> movements) {
+    return jdbcTemplate.batchUpdate(ADD_QUANTITY_WITHIN_STOCK_SQL, new BatchPreparedStatementSetter() {
+
+      @Override
+      public void setValues(PreparedStatement ps, int i) throws SQLException {
+        StockMovementDTO movement = movements.get(i);
+        ps.setInt(1, movement.getDelta());
+        ps.setInt(2, movement.getDelta());
+        ps.setLong(3, movement.getId());
+        ps.setInt(4, movement.getDelta());
+        ps.setInt(5, movement.getDelta());
+        ps.setInt(6, movement.getDelta());
+      }
+
+      @Override
+      public int getBatchSize() {
+        return movements.size();
+      }
+
+    });
+  }
+
+  public int[] addQuantities(List<StockMovementDTO> movements) {
+    return jdbcTemplate.batchUpdate(ADD_QUANTITY_SQL, new BatchPreparedStatementSetter() {
+
+      @Override
+      public void setValues(PreparedStatement ps, int i) throws SQLException {
+        StockMovementDTO movement = movements.get(i);
+        ps.setInt(1, movement.getDelta());
+        ps.setInt(2, movement.getDelta());
+        ps.setLong(3, movement.getId());
+      }
+
+      @Override
+      public int getBatchSize() {
+        return movements.size();
+      }
+
+    });
+  }
+
+}
@@ -0,0 +1,24 @@
+package ricardotenorio.github.com.beerstock.repository;
+
+import org.springframework.data.domain.Pageable;
+import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Modifying;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
+import org.springframework.transaction.annotation.Transactional;
+import ricardotenorio.github.com.beerstock.entity.StockReservation;
+
+import java.time.Instant;
+import java.util.List;
+
+public interface StockReservationRepository extends JpaRepository<StockReservation, Long> {
+
+  List<StockReservation> findByExpiresAtLessThanEqualOrderByExpiresAtAsc(Instant expiresAt,
+      Pageable pageable);
+
+  // the delete count tells which caller claimed the reservation
+  @Transactional
+  @Modifying
+  @Query("delete from StockReservation r where r.id = :id")
+  int deleteReservation(@Param("id") Long id);
+}
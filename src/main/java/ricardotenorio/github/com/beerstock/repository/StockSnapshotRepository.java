@@ -0,0 +1,20 @@
+package ricardotenorio.github.com.beerstock.repository;
+
+import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Modifying;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
+import org.springframework.transaction.annotation.Transactional;
+import ricardotenorio.github.com.beerstock.entity.StockSnapshot;
+
+import java.util.List;
+
+public interface StockSnapshotRepository extends JpaRepository<StockSnapshot, Long> {
+
+  List<StockSnapshot> findByGeneration(long generation);
+
+  @Transactional
+  @Modifying
+  @Query("delete from StockSnapshot s where s.generation < :generation")
+  int deleteOlderThan(@Param("generation") long generation);
+}
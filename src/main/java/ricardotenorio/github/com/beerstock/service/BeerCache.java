@@ -0,0 +1,50 @@
+package ricardotenorio.github.com.beerstock.service;
+
+import com.github.benmanes.caffeine.cache.Cache;
+import com.github.benmanes.caffeine.cache.Caffeine;
+import lombok.Getter;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+import ricardotenorio.github.com.beerstock.dto.BeerDTO;
+
+import java.time.Duration;
+import java.util.Collection;
+import java.util.function.Function;
+
+/**
+ * Bounded cache of ready-to-serve {@link BeerDTO}s keyed by beer name.
+ *
+ * <p>Writes invalidate rather than update entries: an invalidation waits for
+ * a load of the same name that is in progress, so a value read before the
+ * write committed can never outlive it.
+ */
+@Component
+public class BeerCache {
+
+  @Getter
+  private final Cache<String, BeerDTO> byName;
+
+  @Autowired
+  public BeerCache(@Value("${beerstock.cache.by-name.maximum-size:10000}") long maximumSize,
+      @Value("${beerstock.cache.by-name.expire-after-write-ms:60000}") long expireAfterWriteMs) {
+    this.byName = Caffeine.newBuilder()
+        .maximumSize(maximumSize)
+        .expireAfterWrite(Duration.ofMillis(expireAfterWriteMs))
+        .recordStats()
+        .build();
+  }
+
+  public BeerDTO get(String name, Function<String, BeerDTO> loader) {
+    return byName.get(name, loader);
+  }
+
+  public void invalidate(String name) {
+    byName.invalidate(name);
+  }
+
+  public void invalidateAfterCommit(Collection<String> names) {
+    TransactionHooks.afterCommit(() -> byName.invalidateAll(names));
+  }
+
+}
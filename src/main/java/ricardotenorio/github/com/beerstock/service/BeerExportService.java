@@ -0,0 +1,63 @@
+package ricardotenorio.github.com.beerstock.service;
+
+import com.fasterxml.jackson.core.JsonGenerator;
+import com.fasterxml.jackson.core.io.SerializedString;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.databind.ObjectWriter;
+import com.fasterxml.jackson.databind.SerializationFeature;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.annotation.Transactional;
+import ricardotenorio.github.com.beerstock.dto.BeerDTO;
+import ricardotenorio.github.com.beerstock.repository.BeerRepository;
+
+import java.io.IOException;
+import java.io.OutputStream;
+import java.util.Iterator;
+import java.util.stream.Stream;
+
+/**
+ * Writes the whole catalog as newline-delimited JSON, one beer per line.
+ *
+ * <p>Rows are read through a cursor straight into DTOs and written one at a
+ * time; no entity enters the persistence context, so memory use does not
+ * grow with the catalog size.
+ */
+@Service
+public class BeerExportService {
+
+  public static final String NDJSON_VALUE = "application/x-ndjson";
+
+  private final BeerRepository beerRepository;
+  private final StockLedger stockLedger;
+  private final ObjectWriter beerWriter;
+
+  @Autowired
+  public BeerExportService(BeerRepository beerRepository, StockLedger stockLedger, ObjectMapper objectMapper) {
+    this.beerRepository = beerRepository;
+    this.stockLedger = stockLedger;
+    this.beerWriter = objectMapper.writer()
+        .without(SerializationFeature.FLUSH_AFTER_WRITE_VALUE);
+  }
+
+  @Transactional(readOnly = true)
+  public void export(OutputStream outputStream) throws IOException {
+    try (Stream<BeerDTO> beers = beerRepository.streamAllDTOsByOrderByIdAsc();
+         JsonGenerator generator = beerWriter.getFactory().createGenerator(outputStream)) {
+      generator.configure(JsonGenerator.Feature.AUTO_CLOSE_TARGET, false);
+      generator.setRootValueSeparator(new SerializedString("\n"));
+
+      Iterator<BeerDTO> iterator = beers.iterator();
+      boolean empty = true;
+      while (iterator.hasNext()) {
+        beerWriter.writeValue(generator, stockLedger.current(iterator.next()));
+        empty = false;
+      }
+
+      if (!empty) {
+        generator.writeRaw('\n');
+      }
+    }
+  }
+
+}
@@ -0,0 +1,237 @@
+package ricardotenorio.github.com.beerstock.service;
+
+import lombok.AllArgsConstructor;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.annotation.Transactional;
+import ricardotenorio.github.com.beerstock.dto.BeerDTO;
+import ricardotenorio.github.com.beerstock.dto.BeerImportRejectionDTO;
+import ricardotenorio.github.com.beerstock.dto.BeerImportResultDTO;
+import ricardotenorio.github.com.beerstock.entity.Beer;
+import ricardotenorio.github.com.beerstock.enums.BeerType;
+import ricardotenorio.github.com.beerstock.enums.StockEventType;
+import ricardotenorio.github.com.beerstock.exception.BeerImportException;
+import ricardotenorio.github.com.beerstock.mapper.BeerMapper;
+import ricardotenorio.github.com.beerstock.repository.BeerRepository;
+
+import javax.validation.ConstraintViolation;
+import javax.validation.Validator;
+import java.io.BufferedReader;
+import java.io.IOException;
+import java.io.Reader;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+import java.util.Set;
+import java.util.stream.Collectors;
+
+/**
+ * Imports many beers at once. Names are checked for duplicates, inside the
+ * batch and against the catalog, with a single query; accepted beers are
+ * inserted through Hibernate's JDBC batching. A CSV body is read line by
+ * line and refused as soon as it holds more rows than an import accepts, so
+ * an oversized upload is never read or parsed in full.
+ */
+@Service
+@AllArgsConstructor(onConstructor = @__(@Autowired))
+public class BeerImportService {
+
+  public static final String CSV_VALUE = "text/csv";
+  public static final int MAX_IMPORT_ROWS = 10000;
+
+  private static final String[] CSV_COLUMNS = {"name", "brand", "max", "quantity", "type"};
+
+  private final BeerRepository beerRepository;
+  private final Validator validator;
+  private final CatalogVersion catalogVersion;
+  private final StockEventPublisher stockEventPublisher;
+  private final StockTotals stockTotals;
+  private final StockJournal stockJournal;
+  private final BeerNameIndex beerNameIndex;
+  private final BeerMapper beerMapper = BeerMapper.INSTANCE;
+
+  @Transactional
+  public BeerImportResultDTO importBeers(List<BeerDTO> beerDTOs) throws BeerImportException {
+    List<ImportRow> rows = new ArrayList<>(beerDTOs.size());
+    for (int i = 0; i < beerDTOs.size(); i++) {
+      rows.add(new ImportRow(i + 1, beerDTOs.get(i)));
+    }
+
+    return importRows(rows, new ArrayList<>());
+  }
+
+  @Transactional
+  public BeerImportResultDTO importCsv(Reader reader) throws BeerImportException, IOException {
+    BufferedReader lines = new BufferedReader(reader);
+    List<ImportRow> rows = new ArrayList<>();
+    List<BeerImportRejectionDTO> rejected = new ArrayList<>();
+
+    String header = lines.readLine();
+    if (header == null) {
+      throw new BeerImportException("CSV content is empty");
+    }
+    int[] columnIndexes = csvColumnIndexes(splitCsvLine(header));
+
+    String line;
+    int lineNumber = 1;
+    while ((line = lines.readLine()) != null) {
+      lineNumber++;
+      if (line.trim().isEmpty()) {
+        continue;
+      }
+      if (rows.size() + rejected.size() == MAX_IMPORT_ROWS) {
+        throw tooManyRows();
+      }
+
+      List<String> fields = splitCsvLine(line);
+      try {
+        rows.add(new ImportRow(lineNumber, toBeerDTO(fields, columnIndexes)));
+      } catch (IllegalArgumentException | IndexOutOfBoundsException e) {
+        String name = columnIndexes[0] < fields.size() ? fields.get(columnIndexes[0]) : null;
+        rejected.add(new BeerImportRejectionDTO(lineNumber, name, "Malformed row"));
+      }
+    }
+
+    return importRows(rows, rejected);
+  }
+
+  private BeerImportResultDTO importRows(List<ImportRow> rows, List<BeerImportRejectionDTO> rejected)
+      throws BeerImportException {
+    if (rows.size() + rejected.size() > MAX_IMPORT_ROWS) {
+      throw tooManyRows();
+    }
+
+    List<ImportRow> validRows = new ArrayList<>(rows.size());
+    for (ImportRow row : rows) {
+      Set<ConstraintViolation<BeerDTO>> violations = validator.validate(row.beer);
+
+      if (violations.isEmpty()) {
+        validRows.add(row);
+      } else {
+        rejected.add(new BeerImportRejectionDTO(row.line, row.beer.getName(), describe(violations)));
+      }
+    }
+
+    Set<String> registeredNames = validRows.isEmpty()
+        ? new HashSet<>()
+        : new HashSet<>(beerRepository.findExistingNames(validRows.stream()
+            .map(row -> row.beer.getName())
+            .collect(Collectors.toSet())));
+
+    Set<String> batchNames = new HashSet<>();
+    List<Beer> beers = new ArrayList<>(validRows.size());
+    for (ImportRow row : validRows) {
+      String name = row.beer.getName();
+
+      if (registeredNames.contains(name)) {
+        rejected.add(new BeerImportRejectionDTO(row.line, name, "Beer already registered"));
+      } else if (!batchNames.add(name)) {
+        rejected.add(new BeerImportRejectionDTO(row.line, name, "Duplicated name in import"));
+      } else {
+        Beer beer = beerMapper.toModel(row.beer);
+        beer.setId(null);
+        beers.add(beer);
+      }
+    }
+
+    beerRepository.saveAll(beers);
+    if (!beers.isEmpty()) {
+      catalogVersion.bumpAfterCommit();
+      TransactionHooks.afterCommit(() -> beers.forEach(beer -> {
+        stockTotals.add(beer.getType(), beer.getQuantity());
+        beerNameIndex.add(beer);
+      }));
+      stockJournal.record(beers.stream()
+          .collect(Collectors.toMap(Beer::getId, Beer::getQuantity)));
+      stockEventPublisher.publishAfterCommit(StockEventType.CREATED, beers.stream()
+          .map(beerMapper::toDTO)
+          .collect(Collectors.toList()));
+    }
+    rejected.sort((first, second) -> Integer.compare(first.getLine(), second.getLine()));
+
+    return new BeerImportResultDTO(beers.size(), rejected);
+  }
+
+  private static BeerImportException tooManyRows() {
+    return new BeerImportException(String.format("at most %d rows are accepted", MAX_IMPORT_ROWS));
+  }
+
+  private static String describe(Set<ConstraintViolation<BeerDTO>> violations) {
+    return violations.stream()
+        .map(violation -> violation.getPropertyPath() + " " + violation.getMessage())
+        .sorted()
+        .collect(Collectors.joining(", "));
+  }
+
+  private static int[] csvColumnIndexes(List<String> header) throws BeerImportException {
+    Map<String, Integer> indexByName = new HashMap<>();
+    for (int i = 0; i < header.size(); i++) {
+      indexByName.put(header.get(i).toLowerCase(Locale.ROOT), i);
+    }
+
+    int[] indexes = new int[CSV_COLUMNS.length];
+    for (int i = 0; i < CSV_COLUMNS.length; i++) {
+      Integer index = indexByName.get(CSV_COLUMNS[i]);
+
+      if (index == null) {
+        throw new BeerImportException(String.format("CSV header is missing column %s", CSV_COLUMNS[i]));
+      }
+      indexes[i] = index;
+    }
+
+    return indexes;
+  }
+
+  private static BeerDTO toBeerDTO(List<String> fields, int[] columnIndexes) {
+    return BeerDTO.builder()
+        .name(fields.get(columnIndexes[0]))
+        .brand(fields.get(columnIndexes[1]))
+        .max(Integer.valueOf(fields.get(columnIndexes[2])))
+        .quantity(Integer.valueOf(fields.get(columnIndexes[3])))
+        .type(BeerType.valueOf(fields.get(columnIndexes[4]).toUpperCase(Locale.ROOT)))
+        .build();
+  }
+
+  static List<String> splitCsvLine(String line) {
+    List<String> fields = new ArrayList<>();
+    StringBuilder field = new StringBuilder();
+    boolean quoted = false;
+
+    for (int i = 0; i < line.length(); i++) {
+      char c = line.charAt(i);
+
+      if (quoted) {
+        if (c != '"') {
+          field.append(c);
+        } else if (i + 1 < line.length() && line.charAt(i + 1) == '"') {
+          field.append('"');
+          i++;
+        } else {
+          quoted = false;
+        }
+      } else if (c == '"') {
+        quoted = true;
+      } else if (c == ',') {
+        fields.add(field.toString().trim());
+        field.setLength(0);
+      } else {
+        field.append(c);
+      }
+    }
+    fields.add(field.toString().trim());
+
+    return fields;
+  }
+
+  @AllArgsConstructor
+  private static class ImportRow {
+
+    private final int line;
+    private final BeerDTO beer;
+
+  }
+
+}
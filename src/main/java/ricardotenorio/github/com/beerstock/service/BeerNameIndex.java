@@ -0,0 +1,228 @@
+package ricardotenorio.github.com.beerstock.service;
+
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.stereotype.Component;
+import ricardotenorio.github.com.beerstock.dto.BeerSuggestionDTO;
+import ricardotenorio.github.com.beerstock.entity.Beer;
+import ricardotenorio.github.com.beerstock.repository.BeerRepository;
+
+import javax.annotation.PostConstruct;
+import java.text.Normalizer;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.Comparator;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+import java.util.NavigableMap;
+import java.util.Set;
+import java.util.TreeMap;
+import java.util.concurrent.locks.ReadWriteLock;
+import java.util.concurrent.locks.ReentrantReadWriteLock;
+import java.util.regex.Pattern;
+import java.util.stream.Collectors;
+
+/**
+ * In-memory index over beer names and brands for autocomplete.
+ *
+ * <p>Text is lower-cased and stripped of accents. Each field keeps a sorted
+ * map of its words (and whole text) for prefix lookups, and a trigram
+ * posting list for misspellings, scored by Dice similarity. A prefix hit adds
+ * {@link #PREFIX_BONUS} to the similarity and brand scores count half, so an
+ * exact name ranks first. Loaded at startup and kept current by the services
+ * that create and delete beers.
+ */
+@Component
+public class BeerNameIndex {
+
+  public static final int MAX_SUGGESTIONS = 50;
+
+  static final double PREFIX_BONUS = 1.0;
+  static final double MIN_SIMILARITY = 0.3;
+  static final double BRAND_WEIGHT = 0.5;
+
+  private static final Pattern MARKS = Pattern.compile("\\p{M}+");
+  private static final Pattern SPACES = Pattern.compile("\\s+");
+
+  private final BeerRepository beerRepository;
+  private final ReadWriteLock lock = new ReentrantReadWriteLock();
+  private final Map<Long, Beer> beers = new HashMap<>();
+  private final FieldIndex names = new FieldIndex();
+  private final FieldIndex brands = new FieldIndex();
+
+  @Autowired
+  public BeerNameIndex(BeerRepository beerRepository) {
+    this.beerRepository = beerRepository;
+  }
+
+  @PostConstruct
+  public void load() {
+    beerRepository.findAll().forEach(this::add);
+  }
+
+  public void add(Beer beer) {
+    // keep only what the index needs, not the managed entity
+    Beer indexed = new Beer();
+    indexed.setId(beer.getId());
+    indexed.setName(beer.getName());
+    indexed.setBrand(beer.getBrand());
+
+    lock.writeLock().lock();
+    try {
+      removeIndexed(indexed.getId());
+      beers.put(indexed.getId(), indexed);
+      names.add(indexed.getId(), normalize(indexed.getName()));
+      brands.add(indexed.getId(), normalize(indexed.getBrand()));
+    } finally {
+      lock.writeLock().unlock();
+    }
+  }
+
+  public void remove(Long id) {
+    lock.writeLock().lock();
+    try {
+      removeIndexed(id);
+    } finally {
+      lock.writeLock().unlock();
+    }
+  }
+
+  public List<BeerSuggestionDTO> suggest(String query, int limit) {
+    String normalized = normalize(query);
+    if (normalized.isEmpty()) {
+      return Collections.emptyList();
+    }
+
+    lock.readLock().lock();
+    try {
+      Map<Long, Double> scores = new HashMap<>();
+      names.score(normalized, 1.0, scores);
+      brands.score(normalized, BRAND_WEIGHT, scores);
+
+      return scores.entrySet()
+          .stream()
+          .sorted(Map.Entry.<Long, Double>comparingByValue(Comparator.reverseOrder())
+              .thenComparing(entry -> beers.get(entry.getKey()).getName()))
+          .limit(Math.min(Math.max(limit, 1), MAX_SUGGESTIONS))
+          .map(entry -> {
+            Beer beer = beers.get(entry.getKey());
+            return new BeerSuggestionDTO(beer.getId(), beer.getName(), beer.getBrand(), entry.getValue());
+          })
+          .collect(Collectors.toList());
+    } finally {
+      lock.readLock().unlock();
+    }
+  }
+
+  private void removeIndexed(Long id) {
+    if (beers.remove(id) != null) {
+      names.remove(id);
+      brands.remove(id);
+    }
+  }
+
+  static String normalize(String text) {
+    if (text == null) {
+      return "";
+    }
+
+    String stripped = MARKS.matcher(Normalizer.normalize(text, Normalizer.Form.NFD)).replaceAll("");
+    return SPACES.matcher(stripped.toLowerCase(Locale.ROOT).trim()).replaceAll(" ");
+  }
+
+  static Set<String> trigrams(String text) {
+    String padded = "  " + text + " ";
+    Set<String> grams = new HashSet<>();
+    for (int i = 0; i + 3 <= padded.length(); i++) {
+      grams.add(padded.substring(i, i + 3));
+    }
+
+    return grams;
+  }
+
+  private static class FieldIndex {
+
+    private final NavigableMap<String, Set<Long>> prefixes = new TreeMap<>();
+    private final Map<String, Set<Long>> grams = new HashMap<>();
+    private final Map<Long, String> texts = new HashMap<>();
+    private final Map<Long, Integer> gramCounts = new HashMap<>();
+
+    void add(Long id, String text) {
+      texts.put(id, text);
+      for (String key : prefixKeys(text)) {
+        prefixes.computeIfAbsent(key, k -> new HashSet<>()).add(id);
+      }
+
+      Set<String> textGrams = trigrams(text);
+      gramCounts.put(id, textGrams.size());
+      for (String gram : textGrams) {
+        grams.computeIfAbsent(gram, k -> new HashSet<>()).add(id);
+      }
+    }
+
+    void remove(Long id) {
+      String text = texts.remove(id);
+      if (text == null) {
+        return;
+      }
+
+      gramCounts.remove(id);
+      for (String key : prefixKeys(text)) {
+        removePosting(prefixes, key, id);
+      }
+      for (String gram : trigrams(text)) {
+        removePosting(grams, gram, id);
+      }
+    }
+
+    void score(String query, double weight, Map<Long, Double> scores) {
+      Set<Long> prefixHits = new HashSet<>();
+      for (Set<Long> ids : prefixes.subMap(query, true, query + Character.MAX_VALUE, false).values()) {
+        prefixHits.addAll(ids);
+      }
+
+      Set<String> queryGrams = trigrams(query);
+      Map<Long, Integer> shared = new HashMap<>();
+      for (String gram : queryGrams) {
+        for (Long id : grams.getOrDefault(gram, Collections.emptySet())) {
+          shared.merge(id, 1, Integer::sum);
+        }
+      }
+
+      Set<Long> candidates = new HashSet<>(prefixHits);
+      candidates.addAll(shared.keySet());
+      for (Long id : candidates) {
+        double similarity = 2.0 * shared.getOrDefault(id, 0) / (queryGrams.size() + gramCounts.get(id));
+        boolean prefixHit = prefixHits.contains(id);
+
+        if (prefixHit || similarity >= MIN_SIMILARITY) {
+          double score = weight * (similarity + (prefixHit ? PREFIX_BONUS : 0));
+          scores.merge(id, score, Math::max);
+        }
+      }
+    }
+
+    private static List<String> prefixKeys(String text) {
+      List<String> keys = new ArrayList<>();
+      keys.add(text);
+      for (String word : text.split(" ")) {
+        if (!word.isEmpty() && !word.equals(text)) {
+          keys.add(word);
+        }
+      }
+
+      return keys;
+    }
+
+    private static <K> void removePosting(Map<K, Set<Long>> postings, K key, Long id) {
+      Set<Long> ids = postings.get(key);
+      if (ids != null && ids.remove(id) && ids.isEmpty()) {
+        postings.remove(key);
+      }
+    }
+
+  }
+
+}
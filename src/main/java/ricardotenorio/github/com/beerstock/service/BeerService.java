@@ -2,51 +2,173 @@ package ricardotenorio.github.com.beerstock.service;
 
 import lombok.AllArgsConstructor;
 import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.data.domain.Page;
+import org.springframework.data.domain.PageRequest;
+import org.springframework.data.domain.Slice;
+import org.springframework.data.domain.Sort;
 import org.springframework.stereotype.Service;
+import org.springframework.transaction.annotation.Transactional;
 import ricardotenorio.github.com.beerstock.dto.BeerDTO;
+import ricardotenorio.github.com.beerstock.dto.BeerSearchDTO;
+import ricardotenorio.github.com.beerstock.dto.BeerSliceDTO;
+import ricardotenorio.github.com.beerstock.dto.StockMovementDTO;
+import ricardotenorio.github.com.beerstock.dto.StockMovementResultDTO;
 import ricardotenorio.github.com.beerstock.entity.Beer;
+import ricardotenorio.github.com.beerstock.enums.BeerSortField;
+import ricardotenorio.github.com.beerstock.enums.StockEventType;
+import ricardotenorio.github.com.beerstock.enums.StockMovementStatus;
 import ricardotenorio.github.com.beerstock.exception.BeerAlreadyRegisteredException;
 import ricardotenorio.github.com.beerstock.exception.BeerNotFoundException;
 import ricardotenorio.github.com.beerstock.exception.BeerStockExceededException;
 import ricardotenorio.github.com.beerstock.mapper.BeerMapper;
 import ricardotenorio.github.com.beerstock.repository.BeerRepository;
+import ricardotenorio.github.com.beerstock.repository.BeerSpecifications;
+import ricardotenorio.github.com.beerstock.repository.LocationStockRepository;
+import ricardotenorio.github.com.beerstock.repository.StockMovementRepository;
 
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.HashSet;
 import java.util.List;
+import java.util.Map;
 import java.util.Optional;
+import java.util.Set;
 import java.util.stream.Collectors;
 
 @Service
 @AllArgsConstructor(onConstructor = @__(@Autowired))
 public class BeerService {
 
+  public static final int DEFAULT_PAGE_SIZE = 100;
+  public static final int MAX_PAGE_SIZE = 1000;
+
   private final BeerRepository beerRepository;
+  private final StockLedger stockLedger;
+  private final StockMovementRepository stockMovementRepository;
+  private final BeerCache beerCache;
+  private final CatalogVersion catalogVersion;
+  private final StockEventPublisher stockEventPublisher;
+  private final StockAlertEvaluator stockAlertEvaluator;
+  private final StockTotals stockTotals;
+  private final LocationStockRepository locationStockRepository;
+  private final StockJournal stockJournal;
+  private final BeerNameIndex beerNameIndex;
   private final BeerMapper beerMapper = BeerMapper.INSTANCE;
 
+  @Transactional
   public BeerDTO createBeer(BeerDTO beerDTO) throws BeerAlreadyRegisteredException {
     verifyIfIsAlreadyRegistered(beerDTO.getName());
     Beer beer = beerMapper.toModel(beerDTO);
+    beer.setId(null);
     Beer savedBeer = beerRepository.save(beer);
+    stockJournal.record(savedBeer.getId(), savedBeer.getQuantity());
+    beerCache.invalidateAfterCommit(Collections.singletonList(savedBeer.getName()));
+    catalogVersion.bumpAfterCommit();
+
+    BeerDTO savedBeerDTO = beerMapper.toDTO(savedBeer);
+    TransactionHooks.afterCommit(() -> {
+      stockTotals.add(savedBeer.getType(), savedBeer.getQuantity());
+      beerNameIndex.add(savedBeer);
+      stockEventPublisher.publish(StockEventType.CREATED, savedBeerDTO);
+    });
 
-    return beerMapper.toDTO(savedBeer);
+    return savedBeerDTO;
   }
 
   public BeerDTO findByName(String name) throws BeerNotFoundException {
-    Beer foundBeer = beerRepository.findByName(name)
-        .orElseThrow(() -> new BeerNotFoundException(name));
+    BeerDTO foundBeerDTO = beerCache.get(name, key -> beerRepository.findDTOByName(key)
+        .orElse(null));
 
-    return beerMapper.toDTO(foundBeer);
+    if (foundBeerDTO == null) {
+      throw new BeerNotFoundException(name);
+    }
+
+    return stockLedger.current(foundBeerDTO);
   }
 
   public List<BeerDTO> listAll() {
-    return beerRepository.findAll()
+    return beerRepository.findAllDTOs()
         .stream()
+        .map(stockLedger::current)
+        .collect(Collectors.toList());
+  }
+
+  public BeerSliceDTO listPage(int page, int size) {
+    int pageSize = boundPageSize(size);
+    Slice<Beer> slice = beerRepository.findBy(
+        PageRequest.of(Math.max(page, 0), pageSize, Sort.by("id")));
+    List<Beer> beers = slice.getContent();
+
+    return toSlice(beers, slice.hasNext());
+  }
+
+  public BeerSliceDTO listAfter(Long afterId, int size) {
+    int pageSize = boundPageSize(size);
+    List<Beer> beers = beerRepository.findByIdGreaterThanOrderByIdAsc(afterId,
+        PageRequest.of(0, pageSize));
+
+    return toSlice(beers, beers.size() == pageSize);
+  }
+
+  private BeerSliceDTO toSlice(List<Beer> beers, boolean hasNext) {
+    List<BeerDTO> beerDTOs = beers.stream()
         .map(beerMapper::toDTO)
+        .map(stockLedger::current)
         .collect(Collectors.toList());
+    Long nextCursor = hasNext && !beers.isEmpty()
+        ? beers.get(beers.size() - 1).getId()
+        : null;
+
+    return new BeerSliceDTO(beerDTOs, nextCursor);
   }
 
+  public Page<BeerDTO> search(BeerSearchDTO search, BeerSortField sortField,
+      Sort.Direction direction, int page, int size) {
+    Sort sort = Sort.by(direction, sortField.getProperty());
+    if (sortField != BeerSortField.ID) {
+      // id breaks ties so pages stay stable when the sort field repeats
+      sort = sort.and(Sort.by("id"));
+    }
+
+    return beerRepository.findAll(BeerSpecifications.matching(search),
+        PageRequest.of(Math.max(page, 0), boundPageSize(size), sort))
+        .map(beerMapper::toDTO)
+        .map(stockLedger::current);
+  }
+
+  public List<BeerDTO> listLowStock(int size) {
+    return beerRepository.findByReorderHeadroomLessThanEqualOrderByReorderHeadroomAsc(0,
+        PageRequest.of(0, boundPageSize(size)))
+        .stream()
+        .map(beerMapper::toDTO)
+        .map(stockLedger::current)
+        .collect(Collectors.toList());
+  }
+
+  private int boundPageSize(int size) {
+    return Math.min(Math.max(size, 1), MAX_PAGE_SIZE);
+  }
+
+  @Transactional
   public void deleteById(Long id) throws BeerNotFoundException {
-    verifyIfExists(id);
+    // the row lock keeps a ledger flush from writing to the beer while it is deleted
+    Beer beerToDelete = beerRepository.findByIdForUpdate(id)
+        .orElseThrow(() -> new BeerNotFoundException(id));
+    // in ledger mode the database quantity lags behind until the next flush
+    BeerDTO deletedBeerDTO = stockLedger.current(beerMapper.toDTO(beerToDelete));
+    long locationQuantity = locationStockRepository.sumQuantityByBeerId(id);
+    locationStockRepository.deleteByBeerId(id);
     beerRepository.deleteById(id);
+    // the journal holds what reached the database, so it nets out the stored quantities
+    stockJournal.record(id, -(int) (beerToDelete.getQuantity() + locationQuantity));
+    beerCache.invalidateAfterCommit(Collections.singletonList(beerToDelete.getName()));
+    catalogVersion.bumpAfterCommit();
+    TransactionHooks.afterCommit(() -> {
+      stockLedger.evict(id);
+      stockTotals.add(deletedBeerDTO.getType(), -(deletedBeerDTO.getQuantity() + locationQuantity));
+      beerNameIndex.remove(id);
+      stockEventPublisher.publish(StockEventType.DELETED, deletedBeerDTO);
+    });
   }
 
   private void verifyIfIsAlreadyRegistered(String name) throws BeerAlreadyRegisteredException {
@@ -62,31 +184,184 @@ public class BeerService {
         .orElseThrow(() -> new BeerNotFoundException(id));
   }
 
+  @Transactional
   public BeerDTO increment(Long id, int quantityToIncrement)
       throws BeerNotFoundException, BeerStockExceededException {
-    Beer beerToUpdate = verifyIfExists(id);
+    return applyStockChange(id, quantityToIncrement);
+  }
 
-    if (quantityToIncrement + beerToUpdate.getQuantity() <= beerToUpdate.getMax()) {
-      beerToUpdate.setQuantity(beerToUpdate.getQuantity() + quantityToIncrement);
-      Beer updatedBeer = beerRepository.save(beerToUpdate);
+  @Transactional
+  public BeerDTO decrement(Long id, int quantityToDecrement) throws BeerNotFoundException, BeerStockExceededException {
+    return applyStockChange(id, -quantityToDecrement);
+  }
 
-      return beerMapper.toDTO(updatedBeer);
+  private BeerDTO applyStockChange(Long id, int delta)
+      throws BeerNotFoundException, BeerStockExceededException {
+    BeerDTO updatedBeerDTO = applyStockDelta(id, delta);
+    beerCache.invalidateAfterCommit(Collections.singletonList(updatedBeerDTO.getName()));
+    catalogVersion.bumpAfterCommit();
+    if (!stockLedger.isEnabled()) {
+      // with the ledger on, the journal entry is written by its flush
+      stockJournal.record(id, delta);
     }
+    TransactionHooks.afterCommit(() -> {
+      stockTotals.add(updatedBeerDTO.getType(), delta);
+      stockEventPublisher.publish(StockEventType.STOCK_CHANGED, updatedBeerDTO);
+      stockAlertEvaluator.evaluate(updatedBeerDTO, delta);
+    });
 
-    throw new BeerStockExceededException(id);
+    return updatedBeerDTO;
   }
 
-  public BeerDTO decrement(Long id, int quantityToDecrement) throws BeerNotFoundException, BeerStockExceededException {
-    Beer beerToUpdate = verifyIfExists(id);
+  /**
+   * Applies the delta and returns the beer with the quantity this change produced.
+   * The read-back runs in the caller's transaction, behind the row lock the guarded
+   * UPDATE took, so no other writer can move the quantity in between.
+   */
+  private BeerDTO applyStockDelta(Long id, int delta)
+      throws BeerNotFoundException, BeerStockExceededException {
+    if (stockLedger.isEnabled()) {
+      return stockLedger.apply(id, delta);
+    }
+
+    if (beerRepository.addQuantityWithinStock(id, delta) == 0) {
+      if (!beerRepository.existsById(id)) {
+        throw new BeerNotFoundException(id);
+      }
+
+      throw new BeerStockExceededException(id);
+    }
+
+    return beerMapper.toDTO(verifyIfExists(id));
+  }
+
+  @Transactional
+  public List<StockMovementResultDTO> applyStockMovements(List<StockMovementDTO> movements) {
+    List<StockMovementResultDTO> results = stockLedger.isEnabled()
+        ? applyStockMovementsToLedger(movements)
+        : applyStockMovementsInBatch(movements);
+
+    Map<Long, Integer> appliedDeltas = results.stream()
+        .filter(result -> result.getStatus() == StockMovementStatus.APPLIED)
+        .collect(Collectors.groupingBy(StockMovementResultDTO::getId,
+            Collectors.summingInt(StockMovementResultDTO::getDelta)));
+    if (!appliedDeltas.isEmpty()) {
+      List<BeerDTO> updatedBeerDTOs = currentStock(appliedDeltas.keySet());
+      if (!stockLedger.isEnabled()) {
+        setQuantityAfterEachMovement(results, updatedBeerDTOs);
+      }
+
+      beerCache.invalidateAfterCommit(updatedBeerDTOs.stream()
+          .map(BeerDTO::getName)
+          .collect(Collectors.toList()));
+      catalogVersion.bumpAfterCommit();
+      if (!stockLedger.isEnabled()) {
+        stockJournal.record(appliedDeltas);
+      }
+      TransactionHooks.afterCommit(() -> updatedBeerDTOs.forEach(updatedBeerDTO -> {
+        int delta = appliedDeltas.get(updatedBeerDTO.getId());
+        stockTotals.add(updatedBeerDTO.getType(), delta);
+        stockEventPublisher.publish(StockEventType.STOCK_CHANGED, updatedBeerDTO);
+        stockAlertEvaluator.evaluate(updatedBeerDTO, delta);
+      }));
+    }
+
+    return results;
+  }
+
+  public List<BeerDTO> currentStock(Set<Long> ids) {
+    if (!stockLedger.isEnabled()) {
+      return beerRepository.findAllById(ids)
+          .stream()
+          .map(beerMapper::toDTO)
+          .collect(Collectors.toList());
+    }
+
+    List<BeerDTO> beerDTOs = new ArrayList<>(ids.size());
+    for (Long id : ids) {
+      StockLedger.StockEntry entry = stockLedger.find(id);
+
+      if (entry != null) {
+        BeerDTO beerDTO = beerMapper.toDTO(entry.getBeer());
+        beerDTO.setQuantity(entry.getQuantity());
+        beerDTOs.add(beerDTO);
+      }
+    }
+
+    return beerDTOs;
+  }
+
+  private List<StockMovementResultDTO> applyStockMovementsInBatch(List<StockMovementDTO> movements) {
+
+    int[] updateCounts = stockMovementRepository.addQuantitiesWithinStock(movements);
+    Set<Long> rejectedIds = new HashSet<>();
+    for (int i = 0; i < updateCounts.length; i++) {
+      if (updateCounts[i] == 0) {
+        rejectedIds.add(movements.get(i).getId());
+      }
+    }
+    Set<Long> existingRejectedIds = rejectedIds.isEmpty()
+        ? rejectedIds
+        : new HashSet<>(beerRepository.findExistingIds(rejectedIds));
+
+    List<StockMovementResultDTO> results = new ArrayList<>(movements.size());
+    for (int i = 0; i < updateCounts.length; i++) {
+      StockMovementDTO movement = movements.get(i);
+      StockMovementStatus status;
+
+      if (updateCounts[i] != 0) {
+        status = StockMovementStatus.APPLIED;
+      } else if (existingRejectedIds.contains(movement.getId())) {
+        status = StockMovementStatus.STOCK_EXCEEDED;
+      } else {
+        status = StockMovementStatus.NOT_FOUND;
+      }
+      results.add(new StockMovementResultDTO(movement.getId(), movement.getDelta(), status, null));
+    }
+
+    return results;
+  }
+
+  /**
+   * The batch's rows stay locked until it commits, so walking back from the
+   * quantities read in its transaction gives the quantity right after each
+   * applied movement.
+   */
+  private static void setQuantityAfterEachMovement(List<StockMovementResultDTO> results,
+      List<BeerDTO> updatedBeerDTOs) {
+    Map<Long, Integer> quantities = updatedBeerDTOs.stream()
+        .collect(Collectors.toMap(BeerDTO::getId, BeerDTO::getQuantity));
+
+    for (int i = results.size() - 1; i >= 0; i--) {
+      StockMovementResultDTO result = results.get(i);
+      Integer quantity = quantities.get(result.getId());
+
+      if (result.getStatus() == StockMovementStatus.APPLIED && quantity != null) {
+        result.setQuantity(quantity);
+        quantities.put(result.getId(), quantity - result.getDelta());
+      }
+    }
+  }
+
+  private List<StockMovementResultDTO> applyStockMovementsToLedger(List<StockMovementDTO> movements) {
+    List<StockMovementResultDTO> results = new ArrayList<>(movements.size());
 
-    if (quantityToDecrement <= beerToUpdate.getQuantity()) {
-      beerToUpdate.setQuantity(beerToUpdate.getQuantity() - quantityToDecrement);
-      Beer updatedBeer = beerRepository.save(beerToUpdate);
+    for (StockMovementDTO movement : movements) {
+      StockMovementStatus status;
+      Integer quantity = null;
 
-      return beerMapper.toDTO(updatedBeer);
+      try {
+        quantity = stockLedger.apply(movement.getId(), movement.getDelta()).getQuantity();
+        status = StockMovementStatus.APPLIED;
+      } catch (BeerNotFoundException e) {
+        status = StockMovementStatus.NOT_FOUND;
+      } catch (BeerStockExceededException e) {
+        status = StockMovementStatus.STOCK_EXCEEDED;
+      }
+      results.add(new StockMovementResultDTO(movement.getId(), movement.getDelta(), status, quantity));
     }
 
-    throw new BeerStockExceededException(id);
+    return results;
   }
 
 }
@@ -0,0 +1,58 @@
+package ricardotenorio.github.com.beerstock.service;
+
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
+import lombok.AllArgsConstructor;
+import org.aspectj.lang.ProceedingJoinPoint;
+import org.aspectj.lang.annotation.Around;
+import org.aspectj.lang.annotation.Aspect;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.stereotype.Component;
+
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+
+/**
+ * Times every public {@link BeerService} operation, with a percentile
+ * histogram so tail latency can be aggregated across instances, and counts
+ * the exceptions each one throws by type.
+ */
+@Aspect
+@Component
+@AllArgsConstructor(onConstructor = @__(@Autowired))
+public class BeerServiceMetrics {
+
+  static final String OPERATION_TIMER = "beerstock.operation";
+  static final String ERROR_COUNTER = "beerstock.operation.errors";
+
+  private final MeterRegistry meterRegistry;
+  private final ConcurrentMap<String, Timer> timers = new ConcurrentHashMap<>();
+
+  @Around("execution(public * ricardotenorio.github.com.beerstock.service.BeerService.*(..))")
+  public Object record(ProceedingJoinPoint joinPoint) throws Throwable {
+    String operation = joinPoint.getSignature().getName();
+    Timer.Sample sample = Timer.start(meterRegistry);
+
+    try {
+      return joinPoint.proceed();
+    } catch (Exception e) {
+      Counter.builder(ERROR_COUNTER)
+          .tag("operation", operation)
+          .tag("exception", e.getClass().getSimpleName())
+          .register(meterRegistry)
+          .increment();
+      throw e;
+    } finally {
+      sample.stop(timers.computeIfAbsent(operation, this::timer));
+    }
+  }
+
+  private Timer timer(String operation) {
+    return Timer.builder(OPERATION_TIMER)
+        .tag("operation", operation)
+        .publishPercentileHistogram()
+        .register(meterRegistry);
+  }
+
+}
@@ -0,0 +1,99 @@
+package ricardotenorio.github.com.beerstock.service;
+
+import com.fasterxml.jackson.core.type.TypeReference;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.databind.ObjectWriter;
+import lombok.AccessLevel;
+import lombok.AllArgsConstructor;
+import lombok.Getter;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.stereotype.Component;
+import ricardotenorio.github.com.beerstock.dto.BeerDTO;
+import ricardotenorio.github.com.beerstock.repository.BeerRepository;
+
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.util.List;
+import java.util.stream.Collectors;
+import java.util.zip.GZIPOutputStream;
+
+/**
+ * The whole catalog as ready-to-send bytes, JSON and gzipped JSON, tagged
+ * with the {@link CatalogVersion} it was read at.
+ *
+ * <p>A snapshot is rebuilt lazily by the first read after a bump, by one
+ * thread at a time; every other read of an unchanged catalog is a volatile
+ * read and returns the same arrays, with no query, mapping or serialization.
+ */
+@Component
+public class CatalogSnapshotCache {
+
+  private final BeerRepository beerRepository;
+  private final StockLedger stockLedger;
+  private final CatalogVersion catalogVersion;
+  private final ObjectWriter listWriter;
+  private volatile Snapshot snapshot;
+
+  @Autowired
+  public CatalogSnapshotCache(BeerRepository beerRepository, StockLedger stockLedger,
+      CatalogVersion catalogVersion, ObjectMapper objectMapper) {
+    this.beerRepository = beerRepository;
+    this.stockLedger = stockLedger;
+    this.catalogVersion = catalogVersion;
+    this.listWriter = objectMapper.writerFor(new TypeReference<List<BeerDTO>>() {
+    });
+  }
+
+  public Snapshot current() throws IOException {
+    Snapshot current = snapshot;
+
+    if (current != null && current.version == catalogVersion.current()) {
+      return current;
+    }
+
+    return rebuild();
+  }
+
+  private synchronized Snapshot rebuild() throws IOException {
+    // taken before the read, so a write committing meanwhile leaves the snapshot stale rather than mislabelled
+    long version = catalogVersion.current();
+
+    if (snapshot != null && snapshot.version == version) {
+      return snapshot;
+    }
+
+    List<BeerDTO> beerDTOs = beerRepository.findAllDTOs()
+        .stream()
+        .map(stockLedger::current)
+        .collect(Collectors.toList());
+    Snapshot rebuilt = Snapshot.of(version, listWriter.writeValueAsBytes(beerDTOs));
+    snapshot = rebuilt;
+
+    return rebuilt;
+  }
+
+  @Getter
+  @AllArgsConstructor(access = AccessLevel.PRIVATE)
+  public static class Snapshot {
+
+    public static final String GZIP_VARIANT = "gzip";
+
+    private final long version;
+    private final String eTag;
+    private final String gzipETag;
+    private final byte[] json;
+    private final byte[] gzip;
+
+    public static Snapshot of(long version, byte[] json) throws IOException {
+      ByteArrayOutputStream gzip = new ByteArrayOutputStream(json.length / 4 + 64);
+      try (GZIPOutputStream gzipStream = new GZIPOutputStream(gzip)) {
+        gzipStream.write(json);
+      }
+
+      return new Snapshot(version, CatalogVersion.eTag(version),
+          CatalogVersion.eTag(version, GZIP_VARIANT), json, gzip.toByteArray());
+    }
+
+  }
+
+}
@@ -0,0 +1,52 @@
+package ricardotenorio.github.com.beerstock.service;
+
+import org.springframework.stereotype.Component;
+
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Counter bumped after every committed catalog change, used as the collection
+ * ETag. It starts from the boot time so ETags are not reused after a restart.
+ *
+ * <p>Readers must take the ETag before reading the catalog and writers must
+ * bump it after committing; a response can then only carry an ETag older than
+ * its content, never newer.
+ */
+@Component
+public class CatalogVersion {
+
+  private final AtomicLong version = new AtomicLong(System.currentTimeMillis());
+
+  public long current() {
+    return version.get();
+  }
+
+  public String eTag() {
+    return eTag(version.get());
+  }
+
+  public static String eTag(long version) {
+    return "\"" + Long.toHexString(version) + "\"";
+  }
+
+  /**
+   * Tag of another representation of the same version, such as its gzipped
+   * bytes, so caches never serve one encoding for the other.
+   */
+  public String eTag(String variant) {
+    return eTag(version.get(), variant);
+  }
+
+  public static String eTag(long version, String variant) {
+    return "\"" + Long.toHexString(version) + "-" + variant + "\"";
+  }
+
+  public void bump() {
+    version.incrementAndGet();
+  }
+
+  public void bumpAfterCommit() {
+    TransactionHooks.afterCommit(this::bump);
+  }
+
+}
@@ -0,0 +1,101 @@
+package ricardotenorio.github.com.beerstock.service;
+
+import com.github.benmanes.caffeine.cache.Cache;
+import com.github.benmanes.caffeine.cache.Caffeine;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+import ricardotenorio.github.com.beerstock.entity.IdempotencyRecord;
+import ricardotenorio.github.com.beerstock.repository.IdempotencyRecordRepository;
+
+import java.time.Duration;
+import java.time.Instant;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+
+/**
+ * Responses of recent requests sent with an {@code Idempotency-Key}.
+ *
+ * <p>Records are kept in a bounded cache and written through to a table, so a
+ * retry still finds its response after a restart or an eviction. A key is
+ * claimed with {@link #begin} before its request runs; a concurrent request
+ * with the same key is refused until the first one completes or is abandoned.
+ */
+@Slf4j
+@Component
+public class IdempotencyStore {
+
+  private final IdempotencyRecordRepository idempotencyRecordRepository;
+  private final Duration ttl;
+  private final Cache<String, IdempotencyRecord> records;
+  private final ConcurrentMap<String, Boolean> inProgress = new ConcurrentHashMap<>();
+
+  @Autowired
+  public IdempotencyStore(IdempotencyRecordRepository idempotencyRecordRepository,
+      @Value("${beerstock.idempotency.ttl-seconds:86400}") long ttlSeconds,
+      @Value("${beerstock.idempotency.maximum-size:100000}") long maximumSize) {
+    this.idempotencyRecordRepository = idempotencyRecordRepository;
+    this.ttl = Duration.ofSeconds(ttlSeconds);
+    this.records = Caffeine.newBuilder()
+        .maximumSize(maximumSize)
+        .expireAfterWrite(ttl)
+        .build();
+  }
+
+  public IdempotencyRecord find(String key) {
+    IdempotencyRecord record = records.getIfPresent(key);
+
+    if (record == null) {
+      record = idempotencyRecordRepository.findById(key)
+          .filter(stored -> stored.getCreatedAt().isAfter(Instant.now().minus(ttl)))
+          .orElse(null);
+      if (record != null) {
+        records.put(key, record);
+      }
+    }
+
+    return record;
+  }
+
+  /**
+   * Claims the key for a new execution.
+   *
+   * @return {@code false} when a request with this key is already in progress
+   */
+  public boolean begin(String key) {
+    return inProgress.putIfAbsent(key, Boolean.TRUE) == null;
+  }
+
+  /**
+   * Record completed since the caller's last {@link #find}: the cache is
+   * filled before a key is released, so this check after {@link #begin}
+   * cannot miss it.
+   */
+  public IdempotencyRecord findCompleted(String key) {
+    return records.getIfPresent(key);
+  }
+
+  public void complete(IdempotencyRecord record) {
+    records.put(record.getIdempotencyKey(), record);
+    inProgress.remove(record.getIdempotencyKey());
+
+    try {
+      idempotencyRecordRepository.save(record);
+    } catch (RuntimeException e) {
+      // the request has already run; its record still protects retries until evicted
+      log.warn("Idempotency record {} not persisted", record.getIdempotencyKey(), e);
+    }
+  }
+
+  public void abandon(String key) {
+    inProgress.remove(key);
+  }
+
+  @Scheduled(fixedDelayString = "${beerstock.idempotency.cleanup-interval-ms:600000}")
+  public void deleteExpired() {
+    idempotencyRecordRepository.deleteOlderThan(Instant.now().minus(ttl));
+  }
+
+}
@@ -0,0 +1,118 @@
+package ricardotenorio.github.com.beerstock.service;
+
+import lombok.AllArgsConstructor;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.annotation.Transactional;
+import ricardotenorio.github.com.beerstock.dto.BeerStockDTO;
+import ricardotenorio.github.com.beerstock.dto.LocationStockDTO;
+import ricardotenorio.github.com.beerstock.entity.Beer;
+import ricardotenorio.github.com.beerstock.entity.LocationStock;
+import ricardotenorio.github.com.beerstock.exception.BeerNotFoundException;
+import ricardotenorio.github.com.beerstock.exception.BeerStockExceededException;
+import ricardotenorio.github.com.beerstock.exception.LocationStockUnavailableException;
+import ricardotenorio.github.com.beerstock.repository.BeerRepository;
+import ricardotenorio.github.com.beerstock.repository.LocationStockRepository;
+
+import java.util.List;
+import java.util.stream.Collectors;
+
+/**
+ * Stock kept per location. A change at one location only updates that
+ * location's row, so a popular beer sold from several locations is no longer
+ * serialized on a single row; the total is summed when it is read.
+ *
+ * <p>The quantity on the beer itself counts as unassigned stock and is still
+ * changed through {@link BeerService}, whose guarded update counts the
+ * location rows against the beer's max. Decrements are guarded by the row
+ * update and never go below zero. Increments lock the beer row before summing
+ * the total, so restocks of one beer are serialized against each other and
+ * against {@link BeerService} increments and can never exceed the max; the
+ * same lock makes the first insert of a location row race-free. Every change
+ * is journaled with the beer's own, in {@link StockJournal}.
+ *
+ * <p>Location changes need the database stock path: the {@link StockLedger}
+ * only checks a beer's own quantity, so they are refused with a conflict while
+ * it is enabled. Reads still show the ledger's unflushed quantity.
+ */
+@Service
+@AllArgsConstructor(onConstructor = @__(@Autowired))
+public class LocationStockService {
+
+  private final BeerRepository beerRepository;
+  private final LocationStockRepository locationStockRepository;
+  private final StockTotals stockTotals;
+  private final StockLedger stockLedger;
+  private final StockJournal stockJournal;
+
+  public BeerStockDTO findStock(Long id) throws BeerNotFoundException {
+    Beer beer = verifyIfExists(id);
+    StockLedger.StockEntry entry = stockLedger.find(id);
+    int unassigned = entry != null ? entry.getQuantity() : beer.getQuantity();
+    List<LocationStockDTO> locations = locationStockRepository.findByBeerIdOrderByLocationAsc(id)
+        .stream()
+        .map(locationStock -> new LocationStockDTO(locationStock.getLocation(),
+            locationStock.getQuantity()))
+        .collect(Collectors.toList());
+    long total = unassigned + locations.stream()
+        .mapToLong(LocationStockDTO::getQuantity)
+        .sum();
+
+    return new BeerStockDTO(beer.getId(), beer.getName(), beer.getMax(), unassigned,
+        beer.getReserved(), unassigned - beer.getReserved(), locations, total);
+  }
+
+  @Transactional
+  public LocationStockDTO increment(Long id, String location, int quantityToIncrement)
+      throws BeerNotFoundException, BeerStockExceededException, LocationStockUnavailableException {
+    return applyStockChange(id, location, quantityToIncrement);
+  }
+
+  @Transactional
+  public LocationStockDTO decrement(Long id, String location, int quantityToDecrement)
+      throws BeerNotFoundException, BeerStockExceededException, LocationStockUnavailableException {
+    return applyStockChange(id, location, -quantityToDecrement);
+  }
+
+  private LocationStockDTO applyStockChange(Long id, String location, int delta)
+      throws BeerNotFoundException, BeerStockExceededException, LocationStockUnavailableException {
+    if (stockLedger.isEnabled()) {
+      throw new LocationStockUnavailableException(id);
+    }
+
+    Beer beer = delta > 0 ? lockIfExists(id) : verifyIfExists(id);
+
+    if (delta > 0
+        && beer.getQuantity() + locationStockRepository.sumQuantityByBeerId(id) + delta > beer.getMax()) {
+      throw new BeerStockExceededException(id);
+    }
+
+    if (locationStockRepository.addQuantityAtLocation(id, location, delta) == 0) {
+      // a non-negative delta only misses when the location has no row yet
+      if (delta < 0) {
+        throw new BeerStockExceededException(id);
+      }
+
+      locationStockRepository.saveAndFlush(new LocationStock(null, beer, location, delta));
+    }
+    stockJournal.record(id, delta);
+    TransactionHooks.afterCommit(() -> stockTotals.add(beer.getType(), delta));
+
+    int quantity = locationStockRepository.findByBeerIdAndLocation(id, location)
+        .map(LocationStock::getQuantity)
+        .orElse(delta);
+
+    return new LocationStockDTO(location, quantity);
+  }
+
+  private Beer lockIfExists(Long id) throws BeerNotFoundException {
+    return beerRepository.findByIdForUpdate(id)
+        .orElseThrow(() -> new BeerNotFoundException(id));
+  }
+
+  private Beer verifyIfExists(Long id) throws BeerNotFoundException {
+    return beerRepository.findById(id)
+        .orElseThrow(() -> new BeerNotFoundException(id));
+  }
+
+}
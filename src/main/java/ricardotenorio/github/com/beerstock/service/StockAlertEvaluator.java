@@ -0,0 +1,50 @@
+package ricardotenorio.github.com.beerstock.service;
+
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+import ricardotenorio.github.com.beerstock.dto.BeerDTO;
+import ricardotenorio.github.com.beerstock.enums.StockEventType;
+
+/**
+ * Detects threshold crossings from a single stock change. Only the beer that
+ * changed is looked at, and an alert fires once when its quantity enters the
+ * low-stock or near-capacity band, not on every change while it stays there.
+ */
+@Slf4j
+@Component
+public class StockAlertEvaluator {
+
+  private final StockEventPublisher stockEventPublisher;
+  private final double nearCapacityRatio;
+
+  @Autowired
+  public StockAlertEvaluator(StockEventPublisher stockEventPublisher,
+      @Value("${beerstock.stock-alerts.near-capacity-ratio:0.9}") double nearCapacityRatio) {
+    this.stockEventPublisher = stockEventPublisher;
+    this.nearCapacityRatio = nearCapacityRatio;
+  }
+
+  public void evaluate(BeerDTO updatedBeerDTO, int delta) {
+    int quantity = updatedBeerDTO.getQuantity();
+    int previousQuantity = quantity - delta;
+    int reorderLevel = updatedBeerDTO.getReorderLevel() != null ? updatedBeerDTO.getReorderLevel() : 0;
+    int nearCapacityLevel = (int) Math.ceil(updatedBeerDTO.getMax() * nearCapacityRatio);
+
+    if (previousQuantity > reorderLevel && quantity <= reorderLevel) {
+      fire(StockEventType.LOW_STOCK, updatedBeerDTO);
+    }
+
+    if (previousQuantity < nearCapacityLevel && quantity >= nearCapacityLevel) {
+      fire(StockEventType.NEAR_CAPACITY, updatedBeerDTO);
+    }
+  }
+
+  private void fire(StockEventType type, BeerDTO beerDTO) {
+    log.warn("{}: beer {} ({}) at {} of {}", type.getDescription(), beerDTO.getId(),
+        beerDTO.getName(), beerDTO.getQuantity(), beerDTO.getMax());
+    stockEventPublisher.publish(type, beerDTO);
+  }
+
+}
@@ -0,0 +1,158 @@
+package ricardotenorio.github.com.beerstock.service;
+
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.scheduling.concurrent.CustomizableThreadFactory;
+import org.springframework.stereotype.Component;
+import org.springframework.web.servlet.mvc.method.annotation.SseEmitter;
+import ricardotenorio.github.com.beerstock.dto.BeerDTO;
+import ricardotenorio.github.com.beerstock.dto.StockEventDTO;
+import ricardotenorio.github.com.beerstock.enums.StockEventType;
+
+import javax.annotation.PreDestroy;
+import java.io.IOException;
+import java.util.List;
+import java.util.Queue;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.Executor;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.atomic.AtomicBoolean;
+
+/**
+ * Fans stock events out to server-sent event subscribers.
+ *
+ * <p>Publishing only offers the event to each subscriber's bounded queue and
+ * never blocks. Each subscriber's queue is drained by its own task, which
+ * runs on a thread of its own while it sends: a send blocks until the client
+ * takes the bytes, so a slow client only ever holds up its own events. A
+ * subscriber whose queue is full is considered stuck and is disconnected.
+ * The emitter is completed by its drain task, never by the publisher, since
+ * completing waits for a blocked send to return; so a slow dashboard cannot
+ * hold back the write path either.
+ */
+@Component
+public class StockEventPublisher {
+
+  private final List<Subscriber> subscribers = new CopyOnWriteArrayList<>();
+  private final Executor dispatcher;
+  private final int bufferSize;
+  private final long timeoutMs;
+
+  @Autowired
+  public StockEventPublisher(
+      @Value("${beerstock.stock-events.buffer-size:256}") int bufferSize,
+      @Value("${beerstock.stock-events.timeout-ms:1800000}") long timeoutMs) {
+    // idle threads are reclaimed, so at most one thread per subscriber that is sending
+    this(Executors.newCachedThreadPool(new CustomizableThreadFactory("stock-events-")), bufferSize, timeoutMs);
+  }
+
+  StockEventPublisher(Executor dispatcher, int bufferSize, long timeoutMs) {
+    this.dispatcher = dispatcher;
+    this.bufferSize = bufferSize;
+    this.timeoutMs = timeoutMs;
+  }
+
+  public SseEmitter subscribe() {
+    Subscriber subscriber = new Subscriber(new SseEmitter(timeoutMs), bufferSize);
+    subscriber.emitter.onCompletion(() -> subscribers.remove(subscriber));
+    subscriber.emitter.onTimeout(() -> subscribers.remove(subscriber));
+    subscriber.emitter.onError(error -> subscribers.remove(subscriber));
+    subscribers.add(subscriber);
+
+    return subscriber.emitter;
+  }
+
+  public boolean hasSubscribers() {
+    return !subscribers.isEmpty();
+  }
+
+  public int subscriberCount() {
+    return subscribers.size();
+  }
+
+  public void publish(StockEventType type, BeerDTO beerDTO) {
+    if (hasSubscribers()) {
+      publish(new StockEventDTO(type, beerDTO.getId(), beerDTO.getName(),
+          beerDTO.getQuantity(), beerDTO.getMax()));
+    }
+  }
+
+  public void publishAfterCommit(StockEventType type, List<BeerDTO> beerDTOs) {
+    if (hasSubscribers()) {
+      TransactionHooks.afterCommit(() -> beerDTOs.forEach(beerDTO -> publish(type, beerDTO)));
+    }
+  }
+
+  public void publish(StockEventDTO event) {
+    for (Subscriber subscriber : subscribers) {
+      if (!subscriber.queue.offer(event)) {
+        disconnect(subscriber);
+      }
+      scheduleDrain(subscriber);
+    }
+  }
+
+  private void scheduleDrain(Subscriber subscriber) {
+    if (subscriber.draining.compareAndSet(false, true)) {
+      dispatcher.execute(() -> drain(subscriber));
+    }
+  }
+
+  private void drain(Subscriber subscriber) {
+    do {
+      StockEventDTO event;
+      while (!subscriber.closed && (event = subscriber.queue.poll()) != null) {
+        try {
+          subscriber.emitter.send(SseEmitter.event()
+              .name(event.getType().name())
+              .data(event));
+        } catch (IOException | IllegalStateException e) {
+          disconnect(subscriber);
+        }
+      }
+      if (subscriber.closed) {
+        subscriber.queue.clear();
+        subscriber.emitter.complete();
+        // the draining flag stays set, so no further drain is scheduled
+        return;
+      }
+      subscriber.draining.set(false);
+      // an event offered after the last poll but before the flag was cleared
+      // did not schedule a drain, so pick it up here
+    } while (!subscriber.queue.isEmpty() && subscriber.draining.compareAndSet(false, true));
+  }
+
+  private void disconnect(Subscriber subscriber) {
+    // the drain task completes the emitter once any send in progress returns
+    if (subscribers.remove(subscriber)) {
+      subscriber.closed = true;
+    }
+  }
+
+  @PreDestroy
+  public void shutdown() {
+    subscribers.forEach(subscriber -> subscriber.emitter.complete());
+    subscribers.clear();
+
+    if (dispatcher instanceof ExecutorService) {
+      ((ExecutorService) dispatcher).shutdown();
+    }
+  }
+
+  private static class Subscriber {
+
+    private final SseEmitter emitter;
+    private final Queue<StockEventDTO> queue;
+    private final AtomicBoolean draining = new AtomicBoolean();
+    private volatile boolean closed;
+
+    Subscriber(SseEmitter emitter, int bufferSize) {
+      this.emitter = emitter;
+      this.queue = new ArrayBlockingQueue<>(bufferSize);
+    }
+
+  }
+
+}
@@ -0,0 +1,116 @@
+package ricardotenorio.github.com.beerstock.service;
+
+import lombok.AllArgsConstructor;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.annotation.Transactional;
+import ricardotenorio.github.com.beerstock.entity.StockJournalEntry;
+import ricardotenorio.github.com.beerstock.entity.StockSnapshot;
+import ricardotenorio.github.com.beerstock.repository.StockJournalRepository;
+import ricardotenorio.github.com.beerstock.repository.StockSnapshotRepository;
+
+import java.time.Instant;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Journal of every change to a beer's stock: its own quantity and its stock
+ * at locations alike.
+ *
+ * <p>Entries are inserted in the transaction that changes the stock, as
+ * one batch per change, so the journal commits or rolls back together with
+ * the stock it describes. An entry's delta is never changed; the only update
+ * is the one that stamps it with its snapshot generation. With the {@link StockLedger} enabled the change that
+ * reaches the database is the ledger flush, and that is what gets journaled.
+ *
+ * <p>{@link #snapshot()} folds the journal into per-beer quantities on a
+ * fixed delay. It first stamps every entry not yet folded with a new
+ * generation and then sums exactly those entries, so an entry committed late
+ * with a lower id is picked up by the next snapshot instead of being skipped.
+ * Snapshots are built from the previous snapshot and the journal alone, so
+ * {@link #replay()} always agrees with the journal; {@link StockJournalVerifier}
+ * checks it against the stored stock at startup.
+ */
+@Component
+@AllArgsConstructor(onConstructor = @__(@Autowired))
+public class StockJournal {
+
+  private final StockJournalRepository stockJournalRepository;
+  private final StockSnapshotRepository stockSnapshotRepository;
+
+  @Transactional
+  public void record(Long beerId, int delta) {
+    record(Collections.singletonMap(beerId, delta));
+  }
+
+  @Transactional
+  public void record(Map<Long, Integer> deltas) {
+    Instant recordedAt = Instant.now();
+    List<StockJournalEntry> entries = new ArrayList<>(deltas.size());
+    deltas.forEach((beerId, delta) -> {
+      if (delta != 0) {
+        entries.add(new StockJournalEntry(null, beerId, delta, recordedAt, null));
+      }
+    });
+
+    if (!entries.isEmpty()) {
+      stockJournalRepository.saveAll(entries);
+    }
+  }
+
+  @Transactional
+  @Scheduled(fixedDelayString = "${beerstock.journal.snapshot-interval-ms:60000}")
+  public void snapshot() {
+    long previousGeneration = stockJournalRepository.findLastGeneration();
+    long generation = previousGeneration + 1;
+    if (stockJournalRepository.markGeneration(generation) == 0) {
+      return;
+    }
+
+    Map<Long, Integer> quantities = snapshotQuantities(previousGeneration);
+    addDeltas(quantities, stockJournalRepository.sumDeltasByGeneration(generation));
+
+    Instant takenAt = Instant.now();
+    List<StockSnapshot> snapshots = new ArrayList<>(quantities.size());
+    quantities.forEach((beerId, quantity) -> {
+      // deleted beers net out to zero and drop out of the snapshot
+      if (quantity != 0) {
+        snapshots.add(new StockSnapshot(null, generation, beerId, quantity, takenAt));
+      }
+    });
+    stockSnapshotRepository.saveAll(snapshots);
+    stockSnapshotRepository.deleteOlderThan(generation);
+  }
+
+  /**
+   * Quantities rebuilt from the latest snapshot plus the journal entries it
+   * does not cover yet. Beers missing from the result have a quantity of zero.
+   */
+  @Transactional(readOnly = true)
+  public Map<Long, Integer> replay() {
+    Map<Long, Integer> quantities = snapshotQuantities(stockJournalRepository.findLastGeneration());
+    addDeltas(quantities, stockJournalRepository.sumUnsnapshottedDeltas());
+
+    return quantities;
+  }
+
+  private Map<Long, Integer> snapshotQuantities(long generation) {
+    Map<Long, Integer> quantities = new HashMap<>();
+    for (StockSnapshot snapshot : stockSnapshotRepository.findByGeneration(generation)) {
+      quantities.put(snapshot.getBeerId(), snapshot.getQuantity());
+    }
+
+    return quantities;
+  }
+
+  private static void addDeltas(Map<Long, Integer> quantities, List<Object[]> deltas) {
+    for (Object[] row : deltas) {
+      quantities.merge((Long) row[0], ((Number) row[1]).intValue(), Integer::sum);
+    }
+  }
+
+}
@@ -0,0 +1,96 @@
+package ricardotenorio.github.com.beerstock.service;
+
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.annotation.Transactional;
+import ricardotenorio.github.com.beerstock.repository.BeerRepository;
+import ricardotenorio.github.com.beerstock.repository.LocationStockRepository;
+
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+
+/**
+ * Checks at startup that {@link StockJournal#replay()} gives back the stock
+ * stored for every beer, its own quantity plus its stock at locations.
+ * Mismatches are logged, not repaired: the stored stock stays authoritative,
+ * and a mismatch points at a change that bypassed the journal. The
+ * {@link StockLedger} is still empty at startup, so the stored stock is
+ * complete.
+ */
+@Slf4j
+@Component
+public class StockJournalVerifier {
+
+  private static final int LOGGED_MISMATCHES = 20;
+
+  private final StockJournal stockJournal;
+  private final BeerRepository beerRepository;
+  private final LocationStockRepository locationStockRepository;
+  private final boolean enabled;
+
+  @Autowired
+  public StockJournalVerifier(StockJournal stockJournal, BeerRepository beerRepository,
+      LocationStockRepository locationStockRepository,
+      @Value("${beerstock.journal.verify-on-startup:true}") boolean enabled) {
+    this.stockJournal = stockJournal;
+    this.beerRepository = beerRepository;
+    this.locationStockRepository = locationStockRepository;
+    this.enabled = enabled;
+  }
+
+  @EventListener(ApplicationReadyEvent.class)
+  public void verifyOnStartup() {
+    if (enabled) {
+      verify();
+    }
+  }
+
+  /**
+   * @return ids of the beers whose replayed stock differs from the stored one
+   */
+  @Transactional(readOnly = true)
+  public List<Long> verify() {
+    Map<Long, Integer> replayed = stockJournal.replay();
+    Map<Long, Integer> stored = new HashMap<>();
+    addRows(stored, beerRepository.findAllQuantities());
+    addRows(stored, locationStockRepository.sumQuantityByBeer());
+
+    Set<Long> beerIds = new HashSet<>(stored.keySet());
+    beerIds.addAll(replayed.keySet());
+    List<Long> mismatches = new ArrayList<>();
+    for (Long beerId : beerIds) {
+      int storedQuantity = stored.getOrDefault(beerId, 0);
+      int replayedQuantity = replayed.getOrDefault(beerId, 0);
+      if (storedQuantity != replayedQuantity) {
+        if (mismatches.size() < LOGGED_MISMATCHES) {
+          log.warn("Stock journal replays {} units of beer {}, but {} are stored", replayedQuantity, beerId,
+              storedQuantity);
+        }
+        mismatches.add(beerId);
+      }
+    }
+
+    if (mismatches.isEmpty()) {
+      log.info("Stock journal matches the stored stock of {} beers", beerIds.size());
+    } else {
+      log.warn("Stock journal differs from the stored stock of {} of {} beers", mismatches.size(), beerIds.size());
+    }
+
+    return mismatches;
+  }
+
+  private static void addRows(Map<Long, Integer> quantities, List<Object[]> rows) {
+    for (Object[] row : rows) {
+      quantities.merge((Long) row[0], ((Number) row[1]).intValue(), Integer::sum);
+    }
+  }
+
+}
@@ -0,0 +1,260 @@
+package ricardotenorio.github.com.beerstock.service;
+
+import lombok.Getter;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.TransactionDefinition;
+import org.springframework.transaction.support.TransactionTemplate;
+import ricardotenorio.github.com.beerstock.dto.BeerDTO;
+import ricardotenorio.github.com.beerstock.dto.StockMovementDTO;
+import ricardotenorio.github.com.beerstock.entity.Beer;
+import ricardotenorio.github.com.beerstock.exception.BeerNotFoundException;
+import ricardotenorio.github.com.beerstock.exception.BeerStockExceededException;
+import ricardotenorio.github.com.beerstock.mapper.BeerMapper;
+import ricardotenorio.github.com.beerstock.repository.BeerRepository;
+import ricardotenorio.github.com.beerstock.repository.LocationStockRepository;
+import ricardotenorio.github.com.beerstock.repository.StockMovementRepository;
+
+import javax.annotation.PreDestroy;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.Iterator;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * In-memory stock levels keyed by beer id.
+ *
+ * <p>Quantity and max are packed in a single {@link AtomicLong} so both
+ * invariants ({@code reserved <= quantity <= max}) are checked and applied with
+ * one compare-and-set. The bounds are taken when a beer is loaded: the max less
+ * whatever is stocked at the beer's locations, and the units held by its
+ * reservations. Neither can grow afterwards, since location changes and new
+ * reservations are refused while the ledger is enabled. The deltas applied to a beer are also summed, and
+ * {@link #flush()} writes each sum as one {@code quantity + delta} UPDATE, all
+ * beers in a single JDBC batch, and journals the sums in the same
+ * transaction. It runs on a fixed delay, once more on
+ * shutdown, and inline whenever more than {@code max-unflushed-changes}
+ * changes are pending, which bounds what a crash can lose.
+ *
+ * <p>The flush always runs in a transaction of its own. The inline flush
+ * happens on whichever request crossed the threshold, and joining that
+ * request's transaction would tie the other beers' deltas and row locks to
+ * it: a failed flush would mark the request rollback-only, and a request
+ * rolled back after a good flush would throw away deltas already taken off
+ * the entries.
+ *
+ * <p>Disabled by default: {@link BeerService} then applies stock changes with
+ * a guarded UPDATE so the database stays the single source of truth.
+ */
+@Slf4j
+@Component
+public class StockLedger {
+
+  private final BeerRepository beerRepository;
+  private final LocationStockRepository locationStockRepository;
+  private final StockMovementRepository stockMovementRepository;
+  private final StockJournal stockJournal;
+  private final TransactionTemplate transactionTemplate;
+  private final BeerCache beerCache;
+  private final CatalogVersion catalogVersion;
+  @Getter
+  private final boolean enabled;
+  private final int maxUnflushedChanges;
+  private final ConcurrentMap<Long, StockEntry> entries = new ConcurrentHashMap<>();
+  private final Set<Long> dirtyIds = ConcurrentHashMap.newKeySet();
+  private final AtomicInteger unflushedChanges = new AtomicInteger();
+  private final BeerMapper beerMapper = BeerMapper.INSTANCE;
+
+  @Autowired
+  public StockLedger(BeerRepository beerRepository, LocationStockRepository locationStockRepository,
+      StockMovementRepository stockMovementRepository, StockJournal stockJournal,
+      PlatformTransactionManager transactionManager, BeerCache beerCache, CatalogVersion catalogVersion,
+      @Value("${beerstock.stock.ledger.enabled:false}") boolean enabled,
+      @Value("${beerstock.stock.ledger.max-unflushed-changes:1000}") int maxUnflushedChanges) {
+    this.beerRepository = beerRepository;
+    this.locationStockRepository = locationStockRepository;
+    this.stockMovementRepository = stockMovementRepository;
+    this.stockJournal = stockJournal;
+    this.transactionTemplate = new TransactionTemplate(transactionManager);
+    this.transactionTemplate.setPropagationBehavior(TransactionDefinition.PROPAGATION_REQUIRES_NEW);
+    this.beerCache = beerCache;
+    this.catalogVersion = catalogVersion;
+    this.enabled = enabled;
+    this.maxUnflushedChanges = maxUnflushedChanges;
+  }
+
+  /**
+   * Returns the beer with the quantity set by this change's compare-and-set,
+   * not whatever the entry holds by the time the caller reads it.
+   */
+  public BeerDTO apply(Long id, int delta)
+      throws BeerNotFoundException, BeerStockExceededException {
+    StockEntry entry = entryOf(id);
+    AtomicLong level = entry.level;
+
+    long current;
+    long updated;
+    do {
+      current = level.get();
+      int max = maxOf(current);
+      long quantity = (long) quantityOf(current) + delta;
+
+      // like the guarded UPDATE, only the bound the change moves towards is checked
+      if (delta > 0 ? quantity > max : quantity < entry.reserved) {
+        throw new BeerStockExceededException(id);
+      }
+      updated = pack(max, (int) quantity);
+    } while (!level.compareAndSet(current, updated));
+
+    entry.pendingDelta.addAndGet(delta);
+    dirtyIds.add(id);
+    if (unflushedChanges.incrementAndGet() >= maxUnflushedChanges) {
+      try {
+        flush();
+      } catch (RuntimeException e) {
+        // the change itself is applied; the scheduled flush retries the write
+        log.warn("Inline stock flush failed", e);
+      }
+    }
+
+    BeerDTO updatedBeerDTO = beerMapper.toDTO(entry.getBeer());
+    updatedBeerDTO.setQuantity(quantityOf(updated));
+
+    return updatedBeerDTO;
+  }
+
+  public StockEntry find(Long id) {
+    return entries.get(id);
+  }
+
+  /**
+   * The beer as the ledger sees it: a copy carrying the in-memory quantity when
+   * the ledger holds the beer and its quantity moved since the database read.
+   */
+  public BeerDTO current(BeerDTO beerDTO) {
+    StockEntry entry = entries.get(beerDTO.getId());
+
+    if (entry == null) {
+      return beerDTO;
+    }
+
+    int quantity = entry.getQuantity();
+    return beerDTO.getQuantity() == quantity ? beerDTO : beerDTO.toBuilder().quantity(quantity).build();
+  }
+
+  public void evict(Long id) {
+    entries.remove(id);
+    dirtyIds.remove(id);
+  }
+
+  @Scheduled(fixedDelayString = "${beerstock.stock.ledger.flush-interval-ms:500}")
+  public void flush() {
+    unflushedChanges.set(0);
+    Iterator<Long> iterator = dirtyIds.iterator();
+    List<StockMovementDTO> movements = new ArrayList<>();
+    List<StockEntry> flushedEntries = new ArrayList<>();
+
+    while (iterator.hasNext()) {
+      Long id = iterator.next();
+      // removing before reading means a concurrent change marks the id dirty again
+      iterator.remove();
+      StockEntry entry = entries.get(id);
+      int delta = entry != null ? entry.pendingDelta.getAndSet(0) : 0;
+
+      if (delta != 0) {
+        movements.add(new StockMovementDTO(id, delta));
+        flushedEntries.add(entry);
+      }
+    }
+
+    if (movements.isEmpty()) {
+      return;
+    }
+
+    try {
+      transactionTemplate.executeWithoutResult(status -> writeMovements(movements));
+    } catch (RuntimeException e) {
+      // put the deltas back so the next flush retries them
+      for (int i = 0; i < movements.size(); i++) {
+        flushedEntries.get(i).pendingDelta.addAndGet(movements.get(i).getDelta());
+        dirtyIds.add(movements.get(i).getId());
+      }
+      throw e;
+    }
+
+    flushedEntries.forEach(entry -> beerCache.invalidate(entry.getBeer().getName()));
+    catalogVersion.bump();
+  }
+
+  @PreDestroy
+  public void flushOnShutdown() {
+    flush();
+  }
+
+  private void writeMovements(List<StockMovementDTO> movements) {
+    int[] updateCounts = stockMovementRepository.addQuantities(movements);
+    Map<Long, Integer> writtenDeltas = new HashMap<>();
+    for (int i = 0; i < updateCounts.length; i++) {
+      // a beer deleted since it was loaded has no row left to update
+      if (updateCounts[i] != 0) {
+        writtenDeltas.put(movements.get(i).getId(), movements.get(i).getDelta());
+      }
+    }
+    stockJournal.record(writtenDeltas);
+  }
+
+  private StockEntry entryOf(Long id) throws BeerNotFoundException {
+    StockEntry entry = entries.get(id);
+
+    if (entry == null) {
+      Beer beer = beerRepository.findById(id)
+          .orElseThrow(() -> new BeerNotFoundException(id));
+      int located = (int) locationStockRepository.sumQuantityByBeerId(id);
+      StockEntry loaded = new StockEntry(beer,
+          new AtomicLong(pack(beer.getMax() - located, beer.getQuantity())), beer.getReserved());
+      StockEntry existing = entries.putIfAbsent(id, loaded);
+      entry = existing != null ? existing : loaded;
+    }
+
+    return entry;
+  }
+
+  private static long pack(int max, int quantity) {
+    return ((long) max << 32) | (quantity & 0xFFFFFFFFL);
+  }
+
+  private static int maxOf(long level) {
+    return (int) (level >>> 32);
+  }
+
+  private static int quantityOf(long level) {
+    return (int) level;
+  }
+
+  @RequiredArgsConstructor
+  public static class StockEntry {
+
+    @Getter
+    private final Beer beer;
+    private final AtomicLong level;
+    private final int reserved;
+    private final AtomicInteger pendingDelta = new AtomicInteger();
+
+    public int getQuantity() {
+      return quantityOf(level.get());
+    }
+
+  }
+
+}
@@ -0,0 +1,162 @@
+package ricardotenorio.github.com.beerstock.service;
+
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.data.domain.PageRequest;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.annotation.Transactional;
+import ricardotenorio.github.com.beerstock.dto.BeerDTO;
+import ricardotenorio.github.com.beerstock.dto.StockReservationDTO;
+import ricardotenorio.github.com.beerstock.entity.StockReservation;
+import ricardotenorio.github.com.beerstock.enums.StockEventType;
+import ricardotenorio.github.com.beerstock.exception.BeerNotFoundException;
+import ricardotenorio.github.com.beerstock.exception.BeerStockExceededException;
+import ricardotenorio.github.com.beerstock.exception.StockReservationNotFoundException;
+import ricardotenorio.github.com.beerstock.exception.StockReservationUnavailableException;
+import ricardotenorio.github.com.beerstock.mapper.BeerMapper;
+import ricardotenorio.github.com.beerstock.repository.BeerRepository;
+import ricardotenorio.github.com.beerstock.repository.StockReservationRepository;
+
+import java.time.Instant;
+import java.util.Collections;
+import java.util.List;
+
+/**
+ * Holds stock for a while before it is committed as a decrement or released.
+ *
+ * <p>Reserved units are counted in {@code Beer.reserved} and every stock
+ * change is guarded against it with a single conditional UPDATE, so a
+ * reservation can never be oversold and a decrement can never take reserved
+ * units. Each reservation row is claimed by deleting it, which makes commit,
+ * release and expiry mutually exclusive.
+ *
+ * <p>Expired reservations are released by {@link #releaseExpired()}, a sweep
+ * over the indexed expiry column. Reservations need the database stock path:
+ * they are refused with a conflict while the {@link StockLedger} is enabled.
+ */
+@Service
+public class StockReservationService {
+
+  static final int SWEEP_BATCH_SIZE = 500;
+
+  private final BeerRepository beerRepository;
+  private final StockReservationRepository stockReservationRepository;
+  private final StockLedger stockLedger;
+  private final BeerCache beerCache;
+  private final CatalogVersion catalogVersion;
+  private final StockEventPublisher stockEventPublisher;
+  private final StockAlertEvaluator stockAlertEvaluator;
+  private final StockTotals stockTotals;
+  private final StockJournal stockJournal;
+  private final int defaultTtlSeconds;
+  private final BeerMapper beerMapper = BeerMapper.INSTANCE;
+
+  @Autowired
+  public StockReservationService(BeerRepository beerRepository,
+      StockReservationRepository stockReservationRepository, StockLedger stockLedger,
+      BeerCache beerCache, CatalogVersion catalogVersion, StockEventPublisher stockEventPublisher,
+      StockAlertEvaluator stockAlertEvaluator, StockTotals stockTotals, StockJournal stockJournal,
+      @Value("${beerstock.reservation.ttl-seconds:300}") int defaultTtlSeconds) {
+    this.beerRepository = beerRepository;
+    this.stockReservationRepository = stockReservationRepository;
+    this.stockLedger = stockLedger;
+    this.beerCache = beerCache;
+    this.catalogVersion = catalogVersion;
+    this.stockEventPublisher = stockEventPublisher;
+    this.stockAlertEvaluator = stockAlertEvaluator;
+    this.stockTotals = stockTotals;
+    this.stockJournal = stockJournal;
+    this.defaultTtlSeconds = defaultTtlSeconds;
+  }
+
+  @Transactional
+  public StockReservationDTO reserve(Long id, int quantity, Integer ttlSeconds)
+      throws BeerNotFoundException, BeerStockExceededException, StockReservationUnavailableException {
+    if (stockLedger.isEnabled()) {
+      throw new StockReservationUnavailableException(id);
+    }
+
+    if (beerRepository.reserveWithinStock(id, quantity) == 0) {
+      if (!beerRepository.existsById(id)) {
+        throw new BeerNotFoundException(id);
+      }
+
+      throw new BeerStockExceededException(id);
+    }
+
+    Instant expiresAt = Instant.now().plusSeconds(ttlSeconds != null ? ttlSeconds : defaultTtlSeconds);
+    StockReservation reservation = stockReservationRepository.save(
+        new StockReservation(null, id, quantity, expiresAt));
+
+    return toDTO(reservation);
+  }
+
+  @Transactional
+  public BeerDTO commit(Long reservationId)
+      throws StockReservationNotFoundException, BeerNotFoundException {
+    StockReservation reservation = claim(reservationId);
+    Long id = reservation.getBeerId();
+    int delta = -reservation.getQuantity();
+
+    if (beerRepository.commitReserved(id, reservation.getQuantity()) == 0) {
+      throw new BeerNotFoundException(id);
+    }
+
+    BeerDTO updatedBeerDTO = beerRepository.findById(id)
+        .map(beerMapper::toDTO)
+        .orElseThrow(() -> new BeerNotFoundException(id));
+    beerCache.invalidateAfterCommit(Collections.singletonList(updatedBeerDTO.getName()));
+    catalogVersion.bumpAfterCommit();
+    stockJournal.record(Collections.singletonMap(id, delta));
+    TransactionHooks.afterCommit(() -> {
+      stockTotals.add(updatedBeerDTO.getType(), delta);
+      stockEventPublisher.publish(StockEventType.STOCK_CHANGED, updatedBeerDTO);
+      stockAlertEvaluator.evaluate(updatedBeerDTO, delta);
+    });
+
+    return updatedBeerDTO;
+  }
+
+  @Transactional
+  public void release(Long reservationId) throws StockReservationNotFoundException {
+    StockReservation reservation = claim(reservationId);
+    beerRepository.releaseReserved(reservation.getBeerId(), reservation.getQuantity());
+  }
+
+  /**
+   * Releases up to {@link #SWEEP_BATCH_SIZE} expired reservations, oldest
+   * first, in one transaction. A larger backlog is drained by the next runs.
+   */
+  @Transactional
+  @Scheduled(fixedDelayString = "${beerstock.reservation.sweep-interval-ms:1000}")
+  public void releaseExpired() {
+    List<StockReservation> expired = stockReservationRepository
+        .findByExpiresAtLessThanEqualOrderByExpiresAtAsc(Instant.now(),
+            PageRequest.of(0, SWEEP_BATCH_SIZE));
+    for (StockReservation reservation : expired) {
+      // a commit or release that got there first already took the row
+      if (stockReservationRepository.deleteReservation(reservation.getId()) != 0) {
+        beerRepository.releaseReserved(reservation.getBeerId(), reservation.getQuantity());
+      }
+    }
+  }
+
+  private StockReservation claim(Long reservationId) throws StockReservationNotFoundException {
+    StockReservation reservation = stockReservationRepository.findById(reservationId)
+        .filter(found -> found.getExpiresAt().isAfter(Instant.now()))
+        .orElseThrow(() -> new StockReservationNotFoundException(reservationId));
+
+    if (stockReservationRepository.deleteReservation(reservationId) == 0) {
+      throw new StockReservationNotFoundException(reservationId);
+    }
+
+    return reservation;
+  }
+
+  private StockReservationDTO toDTO(StockReservation reservation) {
+    return new StockReservationDTO(reservation.getId(), reservation.getBeerId(),
+        reservation.getQuantity(), reservation.getExpiresAt());
+  }
+
+}
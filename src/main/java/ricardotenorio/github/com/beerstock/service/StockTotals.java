@@ -0,0 +1,67 @@
+package ricardotenorio.github.com.beerstock.service;
+
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.stereotype.Component;
+import ricardotenorio.github.com.beerstock.enums.BeerType;
+import ricardotenorio.github.com.beerstock.repository.BeerRepository;
+import ricardotenorio.github.com.beerstock.repository.LocationStockRepository;
+
+import javax.annotation.PostConstruct;
+import java.util.EnumMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Total stock per {@link BeerType}, across beers and locations, exposed as
+ * gauges. Totals are loaded with aggregate queries at startup and then adjusted by every stock change, so
+ * scraping them never touches the database.
+ */
+@Component
+public class StockTotals {
+
+  static final String STOCK_TOTAL_GAUGE = "beerstock.stock.total";
+
+  private final BeerRepository beerRepository;
+  private final LocationStockRepository locationStockRepository;
+  private final Map<BeerType, AtomicLong> totals = new EnumMap<>(BeerType.class);
+
+  @Autowired
+  public StockTotals(BeerRepository beerRepository,
+      LocationStockRepository locationStockRepository, MeterRegistry meterRegistry) {
+    this.beerRepository = beerRepository;
+    this.locationStockRepository = locationStockRepository;
+
+    for (BeerType type : BeerType.values()) {
+      AtomicLong total = new AtomicLong();
+      totals.put(type, total);
+      Gauge.builder(STOCK_TOTAL_GAUGE, total, AtomicLong::get)
+          .tag("type", type.name())
+          .register(meterRegistry);
+    }
+  }
+
+  @PostConstruct
+  public void load() {
+    totals.values().forEach(total -> total.set(0));
+    addRows(beerRepository.sumQuantityByType());
+    addRows(locationStockRepository.sumQuantityByType());
+  }
+
+  private void addRows(List<Object[]> rows) {
+    for (Object[] row : rows) {
+      add((BeerType) row[0], ((Number) row[1]).longValue());
+    }
+  }
+
+  public void add(BeerType type, long delta) {
+    totals.get(type).addAndGet(delta);
+  }
+
+  public long get(BeerType type) {
+    return totals.get(type).get();
+  }
+
+}
@@ -0,0 +1,219 @@
+package ricardotenorio.github.com.beerstock.service;
+
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
+import lombok.AllArgsConstructor;
+import lombok.Getter;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+import ricardotenorio.github.com.beerstock.dto.BeerDTO;
+import ricardotenorio.github.com.beerstock.dto.StockMovementDTO;
+import ricardotenorio.github.com.beerstock.dto.StockMovementResultDTO;
+import ricardotenorio.github.com.beerstock.exception.BeerNotFoundException;
+import ricardotenorio.github.com.beerstock.exception.BeerStockExceededException;
+import ricardotenorio.github.com.beerstock.exception.StockQueueClosedException;
+import ricardotenorio.github.com.beerstock.exception.StockQueueFullException;
+
+import javax.annotation.PostConstruct;
+import javax.annotation.PreDestroy;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.TimeUnit;
+import java.util.function.Function;
+import java.util.stream.Collectors;
+
+/**
+ * Stock changes queued per beer and applied by a few writer threads.
+ *
+ * <p>Beers are hash-striped over {@code workers} bounded queues, each drained
+ * by its own thread, so the queued changes of one beer are applied by one
+ * thread, in order, and request threads no longer wait on its row lock. Other
+ * write paths, such as stock movement batches, reservations, imports and
+ * location restocks, still update the same rows, so a writer may wait on them.
+ * A writer takes whatever is queued, up to {@code batch-size} changes, and
+ * applies it through {@link BeerService#applyStockMovements} in a single
+ * transaction, each change still guarded on its own. Callers get a
+ * {@link CompletableFuture} holding the beer with the quantity right after
+ * their change, as read inside that transaction. A full queue fails it with
+ * {@link StockQueueFullException}, and once the writers stop every submission
+ * fails with {@link StockQueueClosedException}.
+ *
+ * <p>A writer's batch is timed as {@code applyStockMovements}, and each
+ * change is timed as the increment or decrement it stands for, from
+ * submission to completion, under the same {@link BeerServiceMetrics}
+ * timer and error counter as the synchronous path.
+ *
+ * <p>Disabled by default: stock changes then run on the request thread.
+ */
+@Slf4j
+@Component
+public class StockWriteQueues {
+
+  private static final long POLL_TIMEOUT_MS = 100;
+
+  private final BeerService beerService;
+  private final MeterRegistry meterRegistry;
+  @Getter
+  private final boolean enabled;
+  private final int batchSize;
+  private final List<BlockingQueue<PendingChange>> queues;
+  private final List<Thread> writers;
+  private volatile boolean running;
+
+  @Autowired
+  public StockWriteQueues(BeerService beerService, MeterRegistry meterRegistry,
+      @Value("${beerstock.stock.queues.enabled:false}") boolean enabled,
+      @Value("${beerstock.stock.queues.workers:4}") int workers,
+      @Value("${beerstock.stock.queues.capacity:10000}") int capacity,
+      @Value("${beerstock.stock.queues.batch-size:256}") int batchSize) {
+    this.beerService = beerService;
+    this.meterRegistry = meterRegistry;
+    this.enabled = enabled;
+    this.batchSize = batchSize;
+    this.queues = new ArrayList<>(workers);
+    this.writers = new ArrayList<>(workers);
+
+    for (int i = 0; i < workers; i++) {
+      BlockingQueue<PendingChange> queue = new ArrayBlockingQueue<>(capacity);
+      Thread writer = new Thread(() -> drain(queue), "stock-writer-" + i);
+      writer.setDaemon(true);
+      queues.add(queue);
+      writers.add(writer);
+    }
+  }
+
+  @PostConstruct
+  public void start() {
+    if (enabled) {
+      running = true;
+      writers.forEach(Thread::start);
+    }
+  }
+
+  @PreDestroy
+  public void stop() throws InterruptedException {
+    running = false;
+    for (Thread writer : writers) {
+      if (writer.isAlive()) {
+        writer.join(TimeUnit.SECONDS.toMillis(5));
+      }
+    }
+  }
+
+  public CompletableFuture<BeerDTO> submit(Long id, int delta) {
+    PendingChange change = new PendingChange(id, delta, new CompletableFuture<>());
+    BlockingQueue<PendingChange> queue = queues.get(Math.floorMod(id.hashCode(), queues.size()));
+    String operation = delta < 0 ? "decrement" : "increment";
+    Timer.Sample sample = Timer.start(meterRegistry);
+    change.result.whenComplete((beerDTO, error) -> record(operation, sample, error));
+
+    if (!running) {
+      change.result.completeExceptionally(new StockQueueClosedException(id));
+    } else if (!queue.offer(change)) {
+      change.result.completeExceptionally(new StockQueueFullException(id));
+    } else if (!running && queue.remove(change)) {
+      // stopped while offering and no writer took the change, so none ever will
+      change.result.completeExceptionally(new StockQueueClosedException(id));
+    }
+
+    return change.result;
+  }
+
+  private void record(String operation, Timer.Sample sample, Throwable error) {
+    if (error != null) {
+      Counter.builder(BeerServiceMetrics.ERROR_COUNTER)
+          .tag("operation", operation)
+          .tag("exception", error.getClass().getSimpleName())
+          .register(meterRegistry)
+          .increment();
+    }
+    sample.stop(Timer.builder(BeerServiceMetrics.OPERATION_TIMER)
+        .tag("operation", operation)
+        .publishPercentileHistogram()
+        .register(meterRegistry));
+  }
+
+  private void drain(BlockingQueue<PendingChange> queue) {
+    List<PendingChange> batch = new ArrayList<>(batchSize);
+
+    // changes still queued at shutdown are applied before the writer stops
+    while (running || !queue.isEmpty()) {
+      try {
+        PendingChange first = queue.poll(POLL_TIMEOUT_MS, TimeUnit.MILLISECONDS);
+        if (first == null) {
+          continue;
+        }
+
+        batch.add(first);
+        queue.drainTo(batch, batchSize - 1);
+        apply(batch);
+      } catch (InterruptedException e) {
+        Thread.currentThread().interrupt();
+        return;
+      } catch (RuntimeException e) {
+        log.error("Stock writer failed", e);
+      } finally {
+        batch.clear();
+      }
+    }
+  }
+
+  void apply(List<PendingChange> batch) {
+    List<StockMovementDTO> movements = batch.stream()
+        .map(change -> new StockMovementDTO(change.id, change.delta))
+        .collect(Collectors.toList());
+    List<StockMovementResultDTO> results;
+    Map<Long, BeerDTO> beers;
+
+    try {
+      results = beerService.applyStockMovements(movements);
+      // only the descriptive fields are taken from here; quantities come from the batch itself
+      beers = beerService.currentStock(batch.stream()
+          .map(change -> change.id)
+          .collect(Collectors.toSet()))
+          .stream()
+          .collect(Collectors.toMap(BeerDTO::getId, Function.identity()));
+    } catch (RuntimeException e) {
+      batch.forEach(change -> change.result.completeExceptionally(e));
+      return;
+    }
+
+    for (int i = 0; i < batch.size(); i++) {
+      PendingChange change = batch.get(i);
+      StockMovementResultDTO result = results.get(i);
+      BeerDTO beerDTO = beers.get(change.id);
+
+      switch (result.getStatus()) {
+        case APPLIED:
+          if (beerDTO == null) {
+            change.result.completeExceptionally(new BeerNotFoundException(change.id));
+            break;
+          }
+          change.result.complete(beerDTO.toBuilder().quantity(result.getQuantity()).build());
+          break;
+        case STOCK_EXCEEDED:
+          change.result.completeExceptionally(new BeerStockExceededException(change.id));
+          break;
+        default:
+          change.result.completeExceptionally(new BeerNotFoundException(change.id));
+      }
+    }
+  }
+
+  @AllArgsConstructor
+  static class PendingChange {
+
+    private final Long id;
+    private final int delta;
+    private final CompletableFuture<BeerDTO> result;
+
+  }
+
+}
@@ -0,0 +1,31 @@
+package ricardotenorio.github.com.beerstock.service;
+
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+
+final class TransactionHooks {
+
+  private TransactionHooks() {
+  }
+
+  /**
+   * Runs the action once the surrounding transaction commits, or right away
+   * when there is none. Nothing runs if the transaction rolls back.
+   */
+  static void afterCommit(Runnable action) {
+    if (!TransactionSynchronizationManager.isSynchronizationActive()) {
+      action.run();
+      return;
+    }
+
+    TransactionSynchronizationManager.registerSynchronization(new TransactionSynchronization() {
+
+      @Override
+      public void afterCommit() {
+        action.run();
+      }
+
+    });
+  }
+
+}
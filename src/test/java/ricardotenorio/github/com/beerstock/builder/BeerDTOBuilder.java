@@ -25,6 +25,12 @@ public class BeerDTOBuilder {
   @Builder.Default
   private BeerType type = BeerType.LAGER;
 
+  @Builder.Default
+  private Long version = 0L;
+
+  @Builder.Default
+  private Integer reorderLevel = 0;
+
   public BeerDTO toBeerDTO() {
     return new BeerDTO(
         id,
@@ -32,7 +38,9 @@ public class BeerDTOBuilder {
         brand,
         max,
         quantity,
-        type
+        type,
+        reorderLevel,
+        version
     );
   }
 
@@ -1,29 +1,60 @@
 package ricardotenorio.github.com.beerstock.controller;
 
+import com.fasterxml.jackson.databind.JsonNode;
 import org.junit.jupiter.api.BeforeEach;
 import org.junit.jupiter.api.Test;
 import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.ArgumentMatchers;
 import org.mockito.InjectMocks;
 import org.mockito.Mock;
+import org.mockito.Spy;
 import org.mockito.junit.jupiter.MockitoExtension;
+import org.springframework.data.domain.PageImpl;
+import org.springframework.data.domain.Sort;
 import org.springframework.data.web.PageableHandlerMethodArgumentResolver;
+import org.springframework.http.HttpHeaders;
 import org.springframework.http.MediaType;
+import org.springframework.http.converter.json.Jackson2ObjectMapperBuilder;
+import org.springframework.http.converter.json.MappingJackson2HttpMessageConverter;
+import org.springframework.http.converter.smile.MappingJackson2SmileHttpMessageConverter;
 import org.springframework.test.web.servlet.MockMvc;
 import org.springframework.test.web.servlet.request.MockMvcRequestBuilders;
 import org.springframework.test.web.servlet.setup.MockMvcBuilders;
 import org.springframework.web.servlet.view.json.MappingJackson2JsonView;
 import ricardotenorio.github.com.beerstock.builder.BeerDTOBuilder;
+import ricardotenorio.github.com.beerstock.config.WireFormatConfig;
 import ricardotenorio.github.com.beerstock.dto.BeerDTO;
+import ricardotenorio.github.com.beerstock.dto.BeerSliceDTO;
+import ricardotenorio.github.com.beerstock.dto.LocationStockDTO;
 import ricardotenorio.github.com.beerstock.dto.QuantityDTO;
+import ricardotenorio.github.com.beerstock.dto.StockMovementDTO;
+import ricardotenorio.github.com.beerstock.dto.StockMovementResultDTO;
+import ricardotenorio.github.com.beerstock.dto.StockMovementsDTO;
+import ricardotenorio.github.com.beerstock.dto.StockReservationDTO;
+import ricardotenorio.github.com.beerstock.dto.StockReservationRequestDTO;
+import ricardotenorio.github.com.beerstock.enums.BeerSortField;
+import ricardotenorio.github.com.beerstock.enums.StockMovementStatus;
 import ricardotenorio.github.com.beerstock.exception.BeerNotFoundException;
 import ricardotenorio.github.com.beerstock.exception.BeerStockExceededException;
+import ricardotenorio.github.com.beerstock.service.BeerExportService;
+import ricardotenorio.github.com.beerstock.service.BeerImportService;
+import ricardotenorio.github.com.beerstock.service.BeerNameIndex;
 import ricardotenorio.github.com.beerstock.service.BeerService;
-
+import ricardotenorio.github.com.beerstock.service.CatalogSnapshotCache;
+import ricardotenorio.github.com.beerstock.service.CatalogVersion;
+import ricardotenorio.github.com.beerstock.service.LocationStockService;
+import ricardotenorio.github.com.beerstock.service.StockEventPublisher;
+import ricardotenorio.github.com.beerstock.service.StockReservationService;
+
+import java.nio.charset.StandardCharsets;
+import java.util.Arrays;
 import java.util.Collections;
 
+import static org.hamcrest.MatcherAssert.assertThat;
 import static org.hamcrest.core.Is.is;
 import static org.mockito.Mockito.*;
 import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.post;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.header;
 import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.jsonPath;
 import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.status;
 import static ricardotenorio.github.com.beerstock.utils.JsonConvertionUtils.asJsonString;
@@ -34,6 +65,8 @@ public class BeerControllerTest {
   private static final String BEER_API_URL_PATH = "/api/v1/beers";
   private static final String BEER_API_SUBPATH_INCREMENT_URL = "/increment";
   private static final String BEER_API_SUBPATH_DECREMENT_URL = "/decrement";
+  private static final String BEER_API_SUBPATH_STOCK_URL = "/stock";
+  private static final String SMILE_MEDIA_TYPE = "application/x-jackson-smile";
   private static final long VALID_BEER_ID = 1L;
   private static final long INVALID_BEER_ID = 2L;
 
@@ -42,12 +75,39 @@ public class BeerControllerTest {
   @Mock
   private BeerService beerService;
 
+  @Mock
+  private BeerExportService beerExportService;
+
+  @Mock
+  private BeerImportService beerImportService;
+
+  @Spy
+  private CatalogVersion catalogVersion = new CatalogVersion();
+
+  @Mock
+  private StockEventPublisher stockEventPublisher;
+
+  @Mock
+  private LocationStockService locationStockService;
+
+  @Mock
+  private StockReservationService stockReservationService;
+
+  @Mock
+  private BeerNameIndex beerNameIndex;
+
+  @Mock
+  private CatalogSnapshotCache catalogSnapshotCache;
+
   @InjectMocks
   private BeerController beerController;
 
+  @InjectMocks
+  private StockChangeController stockChangeController;
+
   @BeforeEach
   void setup() {
-    mockMvc = MockMvcBuilders.standaloneSetup(beerController)
+    mockMvc = MockMvcBuilders.standaloneSetup(beerController, stockChangeController)
         .setCustomArgumentResolvers(new PageableHandlerMethodArgumentResolver())
         .setViewResolvers((s, locale) -> new MappingJackson2JsonView())
         .build();
@@ -126,6 +186,42 @@ public class BeerControllerTest {
 
   }
 
+  @Test
+  void whenGETSearchIsCalledThenMatchingBeersAndTheirCountAreReturned() throws Exception {
+
+    // given
+    BeerDTO beerDTO = BeerDTOBuilder.builder().build().toBeerDTO();
+
+    // when
+    when(beerService.search(ArgumentMatchers.any(), eq(BeerSortField.QUANTITY),
+        eq(Sort.Direction.DESC), eq(0), eq(20)))
+        .thenReturn(new PageImpl<>(Collections.singletonList(beerDTO)));
+
+    // then
+    mockMvc.perform(MockMvcRequestBuilders.get(BEER_API_URL_PATH + "/search")
+        .param("type", "LAGER")
+        .param("brand", "Amb")
+        .param("sort", "QUANTITY")
+        .param("direction", "DESC")
+        .param("size", "20")
+        .contentType(MediaType.APPLICATION_JSON))
+        .andExpect(status().isOk())
+        .andExpect(header().string(BeerController.TOTAL_COUNT_HEADER, "1"))
+        .andExpect(jsonPath("$[0].name", is(beerDTO.getName())));
+
+  }
+
+  @Test
+  void whenGETSearchIsCalledWithAnUnknownSortFieldThenBadRequestStatusIsReturned() throws Exception {
+
+    // then
+    mockMvc.perform(MockMvcRequestBuilders.get(BEER_API_URL_PATH + "/search")
+        .param("sort", "colour")
+        .contentType(MediaType.APPLICATION_JSON))
+        .andExpect(status().isBadRequest());
+
+  }
+
   @Test
   void whenGETListIsCalledThenOkStatusIsReturned() throws Exception {
 
@@ -133,7 +229,8 @@ public class BeerControllerTest {
     BeerDTO beerDTO = BeerDTOBuilder.builder().build().toBeerDTO();
 
     // when
-    when(beerService.listAll()).thenReturn(Collections.singletonList(beerDTO));
+    when(catalogSnapshotCache.current()).thenReturn(CatalogSnapshotCache.Snapshot.of(
+        catalogVersion.current(), asJsonString(Collections.singletonList(beerDTO)).getBytes(StandardCharsets.UTF_8)));
 
     // then
     mockMvc.perform(MockMvcRequestBuilders.get(BEER_API_URL_PATH)
@@ -143,6 +240,178 @@ public class BeerControllerTest {
         .andExpect(jsonPath("$[0].brand", is(beerDTO.getBrand())))
         .andExpect(jsonPath("$[0].type", is(beerDTO.getType().toString())));
 
+    verify(beerService, never()).listAll();
+
+  }
+
+  @Test
+  void whenGETListIsCalledAcceptingGzipThenTheCompressedSnapshotIsReturned() throws Exception {
+
+    // given
+    BeerDTO beerDTO = BeerDTOBuilder.builder().build().toBeerDTO();
+    CatalogSnapshotCache.Snapshot snapshot = CatalogSnapshotCache.Snapshot.of(
+        catalogVersion.current(), asJsonString(Collections.singletonList(beerDTO)).getBytes(StandardCharsets.UTF_8));
+
+    // when
+    when(catalogSnapshotCache.current()).thenReturn(snapshot);
+
+    // then
+    byte[] content = mockMvc.perform(MockMvcRequestBuilders.get(BEER_API_URL_PATH)
+        .header(HttpHeaders.ACCEPT_ENCODING, "gzip, deflate"))
+        .andExpect(status().isOk())
+        .andExpect(header().string(HttpHeaders.CONTENT_ENCODING, "gzip"))
+        .andExpect(header().string(HttpHeaders.ETAG, snapshot.getGzipETag()))
+        .andReturn().getResponse().getContentAsByteArray();
+
+    assertThat(Arrays.equals(content, snapshot.getGzip()), is(true));
+    assertThat(snapshot.getGzipETag().equals(snapshot.getETag()), is(false));
+
+  }
+
+  @Test
+  void whenGETListIsCalledRefusingGzipThenTheUncompressedSnapshotIsReturned() throws Exception {
+
+    // given
+    BeerDTO beerDTO = BeerDTOBuilder.builder().build().toBeerDTO();
+    CatalogSnapshotCache.Snapshot snapshot = CatalogSnapshotCache.Snapshot.of(
+        catalogVersion.current(), asJsonString(Collections.singletonList(beerDTO)).getBytes(StandardCharsets.UTF_8));
+
+    // when
+    when(catalogSnapshotCache.current()).thenReturn(snapshot);
+
+    // then
+    mockMvc.perform(MockMvcRequestBuilders.get(BEER_API_URL_PATH)
+        .header(HttpHeaders.ACCEPT_ENCODING, "gzip;q=0, *;q=0.5"))
+        .andExpect(status().isOk())
+        .andExpect(header().doesNotExist(HttpHeaders.CONTENT_ENCODING))
+        .andExpect(header().string(HttpHeaders.ETAG, snapshot.getETag()))
+        .andExpect(jsonPath("$[0].name", is(beerDTO.getName())));
+
+  }
+
+  @Test
+  void whenGETListIsCalledAcceptingSmileThenABinaryListIsReturned() throws Exception {
+
+    // given
+    BeerDTO beerDTO = BeerDTOBuilder.builder().build().toBeerDTO();
+    MappingJackson2SmileHttpMessageConverter smileConverter =
+        new WireFormatConfig().smileHttpMessageConverter(Jackson2ObjectMapperBuilder.json());
+    MockMvc binaryMockMvc = MockMvcBuilders.standaloneSetup(beerController)
+        .setMessageConverters(new MappingJackson2HttpMessageConverter(), smileConverter)
+        .build();
+
+    // when
+    when(beerService.listAll()).thenReturn(Collections.singletonList(beerDTO));
+
+    // then
+    byte[] content = binaryMockMvc.perform(MockMvcRequestBuilders.get(BEER_API_URL_PATH)
+        .accept(SMILE_MEDIA_TYPE))
+        .andExpect(status().isOk())
+        .andExpect(header().string(HttpHeaders.CONTENT_TYPE, SMILE_MEDIA_TYPE))
+        .andExpect(header().string(HttpHeaders.ETAG, catalogVersion.eTag(WireFormatConfig.SMILE_VARIANT)))
+        .andReturn().getResponse().getContentAsByteArray();
+
+    JsonNode beers = smileConverter.getObjectMapper().readTree(content);
+    assertThat(beers.get(0).get("name").asText(), is(beerDTO.getName()));
+    assertThat(beers.get(0).get("type").asInt(), is(beerDTO.getType().ordinal()));
+
+  }
+
+  @Test
+  void whenGETIsCalledWithCurrentETagThenNotModifiedStatusIsReturned() throws Exception {
+
+    // given
+    BeerDTO beerDTO = BeerDTOBuilder.builder().build().toBeerDTO();
+    String eTag = "\"" + beerDTO.getId() + "-" + beerDTO.getVersion() + "-" + beerDTO.getQuantity() + "\"";
+
+    // when
+    when(beerService.findByName(beerDTO.getName())).thenReturn(beerDTO);
+
+    // then
+    mockMvc.perform(MockMvcRequestBuilders.get(BEER_API_URL_PATH + "/" + beerDTO.getName())
+        .header(HttpHeaders.IF_NONE_MATCH, eTag)
+        .contentType(MediaType.APPLICATION_JSON))
+        .andExpect(status().isNotModified());
+
+  }
+
+  @Test
+  void whenGETIsCalledAcceptingSmileThenTheJsonETagDoesNotMatch() throws Exception {
+
+    // given
+    BeerDTO beerDTO = BeerDTOBuilder.builder().build().toBeerDTO();
+    String eTag = "\"" + beerDTO.getId() + "-" + beerDTO.getVersion() + "-" + beerDTO.getQuantity();
+    MockMvc binaryMockMvc = MockMvcBuilders.standaloneSetup(beerController)
+        .setMessageConverters(new MappingJackson2HttpMessageConverter(),
+            new WireFormatConfig().smileHttpMessageConverter(Jackson2ObjectMapperBuilder.json()))
+        .build();
+
+    // when
+    when(beerService.findByName(beerDTO.getName())).thenReturn(beerDTO);
+
+    // then
+    binaryMockMvc.perform(MockMvcRequestBuilders.get(BEER_API_URL_PATH + "/" + beerDTO.getName())
+        .accept(SMILE_MEDIA_TYPE)
+        .header(HttpHeaders.IF_NONE_MATCH, eTag + "\""))
+        .andExpect(status().isOk())
+        .andExpect(header().string(HttpHeaders.CONTENT_TYPE, SMILE_MEDIA_TYPE))
+        .andExpect(header().string(HttpHeaders.ETAG, eTag + "-" + WireFormatConfig.SMILE_VARIANT + "\""));
+
+  }
+
+  @Test
+  void whenGETIsCalledAfterAnUnflushedQuantityChangeThenOkStatusIsReturned() throws Exception {
+
+    // given
+    BeerDTO beerDTO = BeerDTOBuilder.builder().build().toBeerDTO();
+    String eTag = "\"" + beerDTO.getId() + "-" + beerDTO.getVersion() + "-" + beerDTO.getQuantity() + "\"";
+    beerDTO.setQuantity(beerDTO.getQuantity() + 1);
+
+    // when
+    when(beerService.findByName(beerDTO.getName())).thenReturn(beerDTO);
+
+    // then
+    mockMvc.perform(MockMvcRequestBuilders.get(BEER_API_URL_PATH + "/" + beerDTO.getName())
+        .header(HttpHeaders.IF_NONE_MATCH, eTag)
+        .contentType(MediaType.APPLICATION_JSON))
+        .andExpect(status().isOk())
+        .andExpect(jsonPath("$.quantity", is(beerDTO.getQuantity())));
+
+  }
+
+  @Test
+  void whenGETListIsCalledWithCurrentETagThenCatalogIsNotRead() throws Exception {
+
+    // then
+    mockMvc.perform(MockMvcRequestBuilders.get(BEER_API_URL_PATH)
+        .header(HttpHeaders.IF_NONE_MATCH, catalogVersion.eTag())
+        .contentType(MediaType.APPLICATION_JSON))
+        .andExpect(status().isNotModified())
+        .andExpect(header().string(HttpHeaders.VARY, HttpHeaders.ACCEPT + ", " + HttpHeaders.ACCEPT_ENCODING));
+
+    verify(catalogSnapshotCache, never()).current();
+
+  }
+
+  @Test
+  void whenGETListIsCalledWithACursorThenTheNextCursorIsReturned() throws Exception {
+
+    // given
+    BeerDTO beerDTO = BeerDTOBuilder.builder().build().toBeerDTO();
+    BeerSliceDTO slice = new BeerSliceDTO(Collections.singletonList(beerDTO), beerDTO.getId());
+
+    // when
+    when(beerService.listAfter(0L, 1)).thenReturn(slice);
+
+    // then
+    mockMvc.perform(MockMvcRequestBuilders.get(BEER_API_URL_PATH)
+        .param("after", "0")
+        .param("size", "1")
+        .contentType(MediaType.APPLICATION_JSON))
+        .andExpect(status().isOk())
+        .andExpect(header().string(BeerController.NEXT_CURSOR_HEADER, beerDTO.getId().toString()))
+        .andExpect(jsonPath("$[0].name", is(beerDTO.getName())));
+
   }
 
   @Test
@@ -266,4 +535,98 @@ public class BeerControllerTest {
 
   }
 
+  // stock movements
+
+  @Test
+  void whenPATCHIsCalledWithStockMovementsThenOkStatusIsReturned() throws Exception {
+
+    // given
+    StockMovementDTO movement = StockMovementDTO.builder().id(VALID_BEER_ID).delta(5).build();
+    StockMovementsDTO stockMovementsDTO = new StockMovementsDTO(Collections.singletonList(movement));
+    StockMovementResultDTO result = new StockMovementResultDTO(VALID_BEER_ID, 5, StockMovementStatus.APPLIED, 15);
+
+    // when
+    when(beerService.applyStockMovements(stockMovementsDTO.getMovements()))
+        .thenReturn(Collections.singletonList(result));
+
+    // then
+    mockMvc.perform(MockMvcRequestBuilders.patch(BEER_API_URL_PATH + BEER_API_SUBPATH_STOCK_URL)
+        .contentType(MediaType.APPLICATION_JSON)
+        .content(asJsonString(stockMovementsDTO)))
+        .andExpect(status().isOk())
+        .andExpect(jsonPath("$[0].id", is((int) VALID_BEER_ID)))
+        .andExpect(jsonPath("$[0].status", is(StockMovementStatus.APPLIED.toString())));
+
+  }
+
+  @Test
+  void whenPATCHIsCalledWithoutStockMovementsThenBadRequestStatusIsReturned() throws Exception {
+
+    // given
+    StockMovementsDTO stockMovementsDTO = new StockMovementsDTO(Collections.emptyList());
+
+    // then
+    mockMvc.perform(MockMvcRequestBuilders.patch(BEER_API_URL_PATH + BEER_API_SUBPATH_STOCK_URL)
+        .contentType(MediaType.APPLICATION_JSON)
+        .content(asJsonString(stockMovementsDTO)))
+        .andExpect(status().isBadRequest());
+
+  }
+
+  @Test
+  void whenPATCHIsCalledToDecrementAtALocationThenOkStatusIsReturned() throws Exception {
+
+    // given
+    QuantityDTO quantityDTO = QuantityDTO.builder().quantity(2).build();
+    LocationStockDTO locationStockDTO = new LocationStockDTO("warehouse-1", 3);
+
+    // when
+    when(locationStockService.decrement(VALID_BEER_ID, "warehouse-1", quantityDTO.getQuantity()))
+        .thenReturn(locationStockDTO);
+
+    // then
+    mockMvc.perform(MockMvcRequestBuilders.patch(BEER_API_URL_PATH + "/" + VALID_BEER_ID
+        + "/locations/warehouse-1" + BEER_API_SUBPATH_DECREMENT_URL)
+        .contentType(MediaType.APPLICATION_JSON)
+        .content(asJsonString(quantityDTO)))
+        .andExpect(status().isOk())
+        .andExpect(jsonPath("$.location", is("warehouse-1")))
+        .andExpect(jsonPath("$.quantity", is(3)));
+
+  }
+
+  @Test
+  void whenPOSTIsCalledToReserveThenCreatedStatusIsReturned() throws Exception {
+
+    // given
+    StockReservationRequestDTO reservationRequestDTO = new StockReservationRequestDTO(5, 60);
+    StockReservationDTO reservationDTO = new StockReservationDTO(7L, VALID_BEER_ID, 5, null);
+
+    // when
+    when(stockReservationService.reserve(VALID_BEER_ID, 5, 60)).thenReturn(reservationDTO);
+
+    // then
+    mockMvc.perform(post(BEER_API_URL_PATH + "/" + VALID_BEER_ID + "/reservations")
+        .contentType(MediaType.APPLICATION_JSON)
+        .content(asJsonString(reservationRequestDTO)))
+        .andExpect(status().isCreated())
+        .andExpect(jsonPath("$.id", is(7)))
+        .andExpect(jsonPath("$.quantity", is(5)));
+
+  }
+
+  @Test
+  void whenPOSTIsCalledToReserveWithoutQuantityThenBadRequestStatusIsReturned() throws Exception {
+
+    // given
+    StockReservationRequestDTO reservationRequestDTO = new StockReservationRequestDTO(null, 60);
+
+    // then
+    mockMvc.perform(post(BEER_API_URL_PATH + "/" + VALID_BEER_ID + "/reservations")
+        .contentType(MediaType.APPLICATION_JSON)
+        .content(asJsonString(reservationRequestDTO)))
+        .andExpect(status().isBadRequest());
+
+  }
+
 }
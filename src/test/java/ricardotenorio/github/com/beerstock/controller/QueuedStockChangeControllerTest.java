@@ -0,0 +1,101 @@
+package ricardotenorio.github.com.beerstock.controller;
+
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.InjectMocks;
+import org.mockito.Mock;
+import org.mockito.junit.jupiter.MockitoExtension;
+import org.springframework.http.MediaType;
+import org.springframework.test.web.servlet.MockMvc;
+import org.springframework.test.web.servlet.MvcResult;
+import org.springframework.test.web.servlet.request.MockMvcRequestBuilders;
+import org.springframework.test.web.servlet.setup.MockMvcBuilders;
+import ricardotenorio.github.com.beerstock.builder.BeerDTOBuilder;
+import ricardotenorio.github.com.beerstock.dto.BeerDTO;
+import ricardotenorio.github.com.beerstock.dto.QuantityDTO;
+import ricardotenorio.github.com.beerstock.exception.StockQueueFullException;
+import ricardotenorio.github.com.beerstock.service.StockWriteQueues;
+
+import java.util.concurrent.CompletableFuture;
+
+import static org.hamcrest.core.Is.is;
+import static org.mockito.Mockito.*;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.asyncDispatch;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.jsonPath;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.request;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.status;
+import static ricardotenorio.github.com.beerstock.utils.JsonConvertionUtils.asJsonString;
+
+@ExtendWith(MockitoExtension.class)
+public class QueuedStockChangeControllerTest {
+
+  private static final String BEER_API_URL_PATH = "/api/v1/beers";
+  private static final String BEER_API_SUBPATH_INCREMENT_URL = "/increment";
+  private static final String BEER_API_SUBPATH_DECREMENT_URL = "/decrement";
+  private static final long VALID_BEER_ID = 1L;
+
+  private MockMvc mockMvc;
+
+  @Mock
+  private StockWriteQueues stockWriteQueues;
+
+  @InjectMocks
+  private QueuedStockChangeController queuedStockChangeController;
+
+  @BeforeEach
+  void setup() {
+    mockMvc = MockMvcBuilders.standaloneSetup(queuedStockChangeController).build();
+  }
+
+  @Test
+  void whenPATCHIsCalledToIncrementThenTheChangeIsQueued() throws Exception {
+
+    // given
+    QuantityDTO quantityDTO = QuantityDTO.builder().quantity(10).build();
+    BeerDTO beerDTO = BeerDTOBuilder.builder().build().toBeerDTO();
+    beerDTO.setQuantity(beerDTO.getQuantity() + quantityDTO.getQuantity());
+
+    // when
+    when(stockWriteQueues.submit(VALID_BEER_ID, quantityDTO.getQuantity()))
+        .thenReturn(CompletableFuture.completedFuture(beerDTO));
+
+    // then
+    MvcResult result = mockMvc.perform(MockMvcRequestBuilders.patch(BEER_API_URL_PATH + "/" + VALID_BEER_ID +
+        BEER_API_SUBPATH_INCREMENT_URL)
+        .contentType(MediaType.APPLICATION_JSON)
+        .content(asJsonString(quantityDTO)))
+        .andExpect(request().asyncStarted())
+        .andReturn();
+
+    mockMvc.perform(asyncDispatch(result))
+        .andExpect(status().isOk())
+        .andExpect(jsonPath("$.quantity", is(beerDTO.getQuantity())));
+
+  }
+
+  @Test
+  void whenPATCHIsCalledToDecrementWithAFullQueueThenServiceUnavailableStatusIsReturned() throws Exception {
+
+    // given
+    QuantityDTO quantityDTO = QuantityDTO.builder().quantity(5).build();
+    CompletableFuture<BeerDTO> rejected = new CompletableFuture<>();
+    rejected.completeExceptionally(new StockQueueFullException(VALID_BEER_ID));
+
+    // when
+    when(stockWriteQueues.submit(VALID_BEER_ID, -quantityDTO.getQuantity())).thenReturn(rejected);
+
+    // then
+    MvcResult result = mockMvc.perform(MockMvcRequestBuilders.patch(BEER_API_URL_PATH + "/" + VALID_BEER_ID +
+        BEER_API_SUBPATH_DECREMENT_URL)
+        .contentType(MediaType.APPLICATION_JSON)
+        .content(asJsonString(quantityDTO)))
+        .andExpect(request().asyncStarted())
+        .andReturn();
+
+    mockMvc.perform(asyncDispatch(result))
+        .andExpect(status().isServiceUnavailable());
+
+  }
+
+}
@@ -0,0 +1,223 @@
+package ricardotenorio.github.com.beerstock.filter;
+
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.ArgumentMatchers;
+import org.mockito.Mock;
+import org.mockito.junit.jupiter.MockitoExtension;
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.HttpStatus;
+import org.springframework.http.MediaType;
+import org.springframework.mock.web.MockHttpServletRequest;
+import org.springframework.mock.web.MockHttpServletResponse;
+import org.springframework.util.StreamUtils;
+import ricardotenorio.github.com.beerstock.entity.IdempotencyRecord;
+import ricardotenorio.github.com.beerstock.repository.IdempotencyRecordRepository;
+import ricardotenorio.github.com.beerstock.service.IdempotencyStore;
+
+import javax.servlet.FilterChain;
+import javax.servlet.ReadListener;
+import javax.servlet.ServletException;
+import javax.servlet.ServletInputStream;
+import javax.servlet.http.HttpServletResponse;
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.util.Set;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static org.hamcrest.MatcherAssert.assertThat;
+import static org.hamcrest.Matchers.equalTo;
+import static org.hamcrest.Matchers.is;
+import static org.hamcrest.Matchers.nullValue;
+import static org.mockito.Mockito.*;
+
+@ExtendWith(MockitoExtension.class)
+public class IdempotencyFilterTest {
+
+  private static final String INCREMENT_URL_PATH = "/api/v1/beers/1/increment";
+  private static final String DECREMENT_URL_PATH = "/api/v1/beers/1/decrement";
+  private static final String RESPONSE_BODY = "{\"id\":1,\"quantity\":20}";
+  private static final String REQUEST_BODY = "{\"quantity\":10}";
+  private static final String API_KEY = "pos-terminal-1";
+  private static final String ETAG = "\"1-2-20\"";
+  private static final String LOCATION = "/api/v1/beers/1";
+
+  @Mock
+  private IdempotencyRecordRepository idempotencyRecordRepository;
+
+  private IdempotencyFilter idempotencyFilter;
+
+  private final AtomicInteger executions = new AtomicInteger();
+
+  @BeforeEach
+  void setup() {
+    idempotencyFilter = new IdempotencyFilter(new IdempotencyStore(idempotencyRecordRepository, 86400, 100),
+        new ClientIdentity(Set.of(API_KEY, "pos-terminal-2")));
+  }
+
+  @Test
+  void whenARequestIsRetriedThenTheRecordedResponseIsReplayed() throws ServletException, IOException {
+
+    // given
+    String key = "scan-1";
+
+    // when
+    MockHttpServletResponse first = perform(INCREMENT_URL_PATH, key, HttpStatus.OK);
+    MockHttpServletResponse retry = perform(INCREMENT_URL_PATH, key, HttpStatus.OK);
+
+    // then
+    assertThat(executions.get(), is(equalTo(1)));
+    assertThat(retry.getStatus(), is(equalTo(HttpStatus.OK.value())));
+    assertThat(retry.getContentAsString(), is(equalTo(first.getContentAsString())));
+    assertThat(retry.getHeader(IdempotencyFilter.REPLAYED_HEADER), is(equalTo("true")));
+    assertThat(retry.getContentType(), is(equalTo(MediaType.APPLICATION_JSON_VALUE)));
+    assertThat(retry.getHeader(HttpHeaders.ETAG), is(equalTo(ETAG)));
+    assertThat(retry.getHeader(HttpHeaders.LOCATION), is(equalTo(LOCATION)));
+    verify(idempotencyRecordRepository, times(1)).save(ArgumentMatchers.any(IdempotencyRecord.class));
+
+  }
+
+  @Test
+  void whenAKeyIsReusedForAnotherRequestThenUnprocessableEntityIsReturned() throws ServletException, IOException {
+
+    // given
+    String key = "scan-2";
+
+    // when
+    perform(INCREMENT_URL_PATH, key, HttpStatus.OK);
+
+    // then
+    MockHttpServletResponse reused = perform(DECREMENT_URL_PATH, key, HttpStatus.OK);
+
+    assertThat(reused.getStatus(), is(equalTo(HttpStatus.UNPROCESSABLE_ENTITY.value())));
+    assertThat(executions.get(), is(equalTo(1)));
+
+  }
+
+  @Test
+  void whenAKeyIsReusedWithAnotherBodyThenUnprocessableEntityIsReturned() throws ServletException, IOException {
+
+    // given
+    String key = "scan-4";
+
+    // when
+    perform(INCREMENT_URL_PATH, key, HttpStatus.OK);
+
+    // then
+    MockHttpServletResponse reused = perform(INCREMENT_URL_PATH, key, "{\"quantity\":20}", API_KEY,
+        HttpStatus.OK);
+
+    assertThat(reused.getStatus(), is(equalTo(HttpStatus.UNPROCESSABLE_ENTITY.value())));
+    assertThat(executions.get(), is(equalTo(1)));
+
+  }
+
+  @Test
+  void whenAnotherClientSendsTheSameKeyThenItsRequestRuns() throws ServletException, IOException {
+
+    // given
+    String key = "scan-5";
+
+    // when
+    perform(INCREMENT_URL_PATH, key, HttpStatus.OK);
+
+    // then
+    MockHttpServletResponse otherClient = perform(INCREMENT_URL_PATH, key, REQUEST_BODY, "pos-terminal-2",
+        HttpStatus.OK);
+
+    assertThat(otherClient.getStatus(), is(equalTo(HttpStatus.OK.value())));
+    assertThat(otherClient.getHeader(IdempotencyFilter.REPLAYED_HEADER), is(nullValue()));
+    assertThat(executions.get(), is(equalTo(2)));
+
+  }
+
+  @Test
+  void whenTheRequestFailsOnTheServerThenARetryRunsAgain() throws ServletException, IOException {
+
+    // given
+    String key = "scan-3";
+
+    // when
+    perform(INCREMENT_URL_PATH, key, HttpStatus.INTERNAL_SERVER_ERROR);
+
+    // then
+    MockHttpServletResponse retry = perform(INCREMENT_URL_PATH, key, HttpStatus.OK);
+
+    assertThat(retry.getStatus(), is(equalTo(HttpStatus.OK.value())));
+    assertThat(executions.get(), is(equalTo(2)));
+    verify(idempotencyRecordRepository, times(1)).save(ArgumentMatchers.any(IdempotencyRecord.class));
+
+  }
+
+  @Test
+  void whenTheBodyIsReadWithAReadListenerThenTheWholeBodyIsDelivered() throws IOException {
+
+    // given
+    MockHttpServletRequest request = new MockHttpServletRequest("PATCH", INCREMENT_URL_PATH);
+    request.setContent(REQUEST_BODY.getBytes(StandardCharsets.UTF_8));
+    ServletInputStream input = new CachedBodyRequest(request).getInputStream();
+    ByteArrayOutputStream read = new ByteArrayOutputStream();
+    AtomicInteger allDataRead = new AtomicInteger();
+
+    // when
+    input.setReadListener(new ReadListener() {
+
+      @Override
+      public void onDataAvailable() throws IOException {
+        while (input.isReady() && !input.isFinished()) {
+          read.write(input.read());
+        }
+      }
+
+      @Override
+      public void onAllDataRead() {
+        allDataRead.incrementAndGet();
+      }
+
+      @Override
+      public void onError(Throwable t) {
+        throw new IllegalStateException(t);
+      }
+
+    });
+
+    // then
+    assertThat(read.toString(StandardCharsets.UTF_8), is(equalTo(REQUEST_BODY)));
+    assertThat(allDataRead.get(), is(equalTo(1)));
+
+  }
+
+  private MockHttpServletResponse perform(String path, String key, HttpStatus status)
+      throws ServletException, IOException {
+    return perform(path, key, REQUEST_BODY, API_KEY, status);
+  }
+
+  private MockHttpServletResponse perform(String path, String key, String body, String apiKey,
+      HttpStatus status) throws ServletException, IOException {
+    MockHttpServletRequest request = new MockHttpServletRequest("PATCH", path);
+    request.setServletPath(path);
+    request.addHeader(IdempotencyFilter.IDEMPOTENCY_KEY_HEADER, key);
+    request.addHeader(RateLimitFilter.API_KEY_HEADER, apiKey);
+    request.setContentType(MediaType.APPLICATION_JSON_VALUE);
+    request.setContent(body.getBytes(StandardCharsets.UTF_8));
+    MockHttpServletResponse response = new MockHttpServletResponse();
+
+    FilterChain handler = (servletRequest, servletResponse) -> {
+      executions.incrementAndGet();
+      // the handler still gets to read the whole body
+      assertThat(StreamUtils.copyToString(servletRequest.getInputStream(), StandardCharsets.UTF_8),
+          is(equalTo(body)));
+      servletResponse.setContentType(MediaType.APPLICATION_JSON_VALUE);
+      ((HttpServletResponse) servletResponse).setHeader(HttpHeaders.ETAG, ETAG);
+      ((HttpServletResponse) servletResponse).setHeader(HttpHeaders.LOCATION, LOCATION);
+      ((HttpServletResponse) servletResponse).setStatus(status.value());
+      servletResponse.getWriter().write(RESPONSE_BODY);
+    };
+    idempotencyFilter.doFilter(request, response, handler);
+
+    return response;
+  }
+
+}
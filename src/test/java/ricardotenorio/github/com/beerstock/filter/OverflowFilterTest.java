@@ -0,0 +1,79 @@
+package ricardotenorio.github.com.beerstock.filter;
+
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.HttpStatus;
+import org.springframework.mock.web.MockFilterChain;
+import org.springframework.mock.web.MockHttpServletRequest;
+import org.springframework.mock.web.MockHttpServletResponse;
+
+import javax.servlet.ServletException;
+import java.io.IOException;
+
+import static org.hamcrest.MatcherAssert.assertThat;
+import static org.hamcrest.Matchers.equalTo;
+import static org.hamcrest.Matchers.is;
+import static org.hamcrest.Matchers.notNullValue;
+import static org.hamcrest.Matchers.nullValue;
+
+public class OverflowFilterTest {
+
+  private static final String BEER_API_URL_PATH = "/api/v1/beers";
+
+  private MeterRegistry meterRegistry;
+
+  private OverflowFilter overflowFilter;
+
+  @BeforeEach
+  void setup() {
+    meterRegistry = new SimpleMeterRegistry();
+    overflowFilter = new OverflowFilter(meterRegistry);
+  }
+
+  @Test
+  void whenTheRequestArrivedWhileTheExecutorWasFullThenServiceUnavailableIsReturned() {
+
+    // given
+    MockHttpServletRequest request = new MockHttpServletRequest("GET", BEER_API_URL_PATH);
+    MockHttpServletResponse response = new MockHttpServletResponse();
+    MockFilterChain filterChain = new MockFilterChain();
+
+    // when
+    OverflowFilter.runAsOverflow(() -> {
+      try {
+        overflowFilter.doFilter(request, response, filterChain);
+      } catch (ServletException | IOException e) {
+        throw new IllegalStateException(e);
+      }
+    });
+
+    // then
+    assertThat(response.getStatus(), is(equalTo(HttpStatus.SERVICE_UNAVAILABLE.value())));
+    assertThat(response.getHeader(HttpHeaders.RETRY_AFTER), is(notNullValue()));
+    assertThat(filterChain.getRequest(), is(nullValue()));
+    assertThat(meterRegistry.get("beerstock.requests.rejected").tag("reason", "executor-full").counter().count(),
+        is(equalTo(1.0)));
+
+  }
+
+  @Test
+  void whenTheExecutorHadRoomThenTheRequestIsServed() throws ServletException, IOException {
+
+    // given
+    MockHttpServletRequest request = new MockHttpServletRequest("GET", BEER_API_URL_PATH);
+    MockHttpServletResponse response = new MockHttpServletResponse();
+    MockFilterChain filterChain = new MockFilterChain();
+
+    // when
+    overflowFilter.doFilter(request, response, filterChain);
+
+    // then
+    assertThat(response.getStatus(), is(equalTo(HttpStatus.OK.value())));
+    assertThat(filterChain.getRequest(), is(notNullValue()));
+
+  }
+
+}
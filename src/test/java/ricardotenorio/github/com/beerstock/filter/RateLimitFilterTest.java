@@ -0,0 +1,165 @@
+package ricardotenorio.github.com.beerstock.filter;
+
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.HttpStatus;
+import org.springframework.mock.web.MockFilterChain;
+import org.springframework.mock.web.MockHttpServletRequest;
+import org.springframework.mock.web.MockHttpServletResponse;
+
+import javax.servlet.ServletException;
+import java.io.IOException;
+import java.util.Set;
+import java.util.concurrent.TimeUnit;
+
+import static org.hamcrest.MatcherAssert.assertThat;
+import static org.hamcrest.Matchers.equalTo;
+import static org.hamcrest.Matchers.is;
+import static org.hamcrest.Matchers.lessThan;
+import static org.hamcrest.Matchers.notNullValue;
+
+public class RateLimitFilterTest {
+
+  private static final String BEER_API_URL_PATH = "/api/v1/beers";
+
+  private MeterRegistry meterRegistry;
+
+  private RateLimitFilter rateLimitFilter;
+
+  @BeforeEach
+  void setup() {
+    meterRegistry = new SimpleMeterRegistry();
+    rateLimitFilter = new RateLimitFilter(meterRegistry, new ClientIdentity(Set.of("pos-terminal-1", "pos-terminal-2")),
+        true, 1, 1, 100, 1, 1, 250);
+  }
+
+  @Test
+  void whenReadBudgetIsSpentThenTooManyRequestsIsReturned() throws ServletException, IOException {
+
+    // given
+    String apiKey = "pos-terminal-1";
+
+    // when
+    int first = perform("GET", apiKey).getStatus();
+    int second = perform("GET", apiKey).getStatus();
+    MockHttpServletResponse third = perform("GET", apiKey);
+
+    // then
+    assertThat(first, is(equalTo(HttpStatus.OK.value())));
+    assertThat(second, is(equalTo(HttpStatus.OK.value())));
+    assertThat(third.getStatus(), is(equalTo(HttpStatus.TOO_MANY_REQUESTS.value())));
+    assertThat(third.getHeader(HttpHeaders.RETRY_AFTER), is(notNullValue()));
+    assertThat(meterRegistry.get("beerstock.requests.rejected").tag("budget", "read").counter().count(),
+        is(equalTo(1.0)));
+
+  }
+
+  @Test
+  void whenAClientRotatesUnknownApiKeysThenItIsStillThrottled() throws ServletException, IOException {
+
+    // given
+    String[] apiKeys = {"rotated-1", "rotated-2", "rotated-3"};
+
+    // when
+    perform("GET", apiKeys[0]);
+    perform("GET", apiKeys[1]);
+    MockHttpServletResponse third = perform("GET", apiKeys[2]);
+
+    // then
+    assertThat(third.getStatus(), is(equalTo(HttpStatus.TOO_MANY_REQUESTS.value())));
+    assertThat(meterRegistry.get("beerstock.rate-limit.clients").gauge().value(), is(equalTo(1.0)));
+
+  }
+
+  @Test
+  void whenReadBudgetIsSpentThenMutationsAndOtherClientsAreStillServed() throws ServletException, IOException {
+
+    // given
+    String apiKey = "pos-terminal-1";
+
+    // when
+    perform("GET", apiKey);
+    perform("GET", apiKey);
+
+    // then
+    assertThat(perform("GET", apiKey).getStatus(), is(equalTo(HttpStatus.TOO_MANY_REQUESTS.value())));
+    assertThat(perform("PATCH", apiKey).getStatus(), is(equalTo(HttpStatus.OK.value())));
+    assertThat(perform("GET", "pos-terminal-2").getStatus(), is(equalTo(HttpStatus.OK.value())));
+
+  }
+
+  @Test
+  void whenConcurrencyLimitIsReachedThenServiceUnavailableIsReturned() throws ServletException, IOException {
+
+    // given
+    MockHttpServletResponse nestedResponse = new MockHttpServletResponse();
+    MockHttpServletRequest nestedRequest = request("GET", "pos-terminal-2");
+
+    // when
+    rateLimitFilter.doFilter(request("GET", "pos-terminal-1"), new MockHttpServletResponse(),
+        (request, response) -> rateLimitFilter.doFilter(nestedRequest, nestedResponse, new MockFilterChain()));
+
+    // then
+    assertThat(nestedResponse.getStatus(), is(equalTo(HttpStatus.SERVICE_UNAVAILABLE.value())));
+    assertThat(meterRegistry.get("beerstock.requests.rejected").tag("reason", "overload").counter().count(),
+        is(equalTo(1.0)));
+
+  }
+
+  @Test
+  void whenRequestIsAsyncThenItsSlotIsHeldUntilItCompletes() throws ServletException, IOException {
+
+    // given
+    MockHttpServletRequest asyncRequest = request("GET", "pos-terminal-1");
+    asyncRequest.setAsyncSupported(true);
+
+    // when
+    rateLimitFilter.doFilter(asyncRequest, new MockHttpServletResponse(),
+        (request, response) -> request.startAsync());
+    int whileRunning = perform("GET", "pos-terminal-2").getStatus();
+    asyncRequest.getAsyncContext().complete();
+    int afterCompletion = perform("GET", "pos-terminal-2").getStatus();
+
+    // then
+    assertThat(whileRunning, is(equalTo(HttpStatus.SERVICE_UNAVAILABLE.value())));
+    assertThat(afterCompletion, is(equalTo(HttpStatus.OK.value())));
+
+  }
+
+  @Test
+  void whenRequestsAreSlowerThanTheTargetThenTheLimitShrinks() {
+
+    // given
+    long now = System.nanoTime();
+    long target = TimeUnit.MILLISECONDS.toNanos(100);
+    AdaptiveConcurrencyLimit limit = new AdaptiveConcurrencyLimit(1, 100, target, now);
+
+    // when
+    limit.tryAcquire();
+    limit.release(2 * target, now);
+
+    // then
+    assertThat(limit.getLimit(), is(lessThan(100)));
+    assertThat(limit.getInFlight(), is(equalTo(0)));
+
+  }
+
+  private MockHttpServletResponse perform(String method, String apiKey) throws ServletException, IOException {
+    MockHttpServletResponse response = new MockHttpServletResponse();
+    rateLimitFilter.doFilter(request(method, apiKey), response, new MockFilterChain());
+
+    return response;
+  }
+
+  private static MockHttpServletRequest request(String method, String apiKey) {
+    MockHttpServletRequest request = new MockHttpServletRequest(method, BEER_API_URL_PATH);
+    request.setServletPath(BEER_API_URL_PATH);
+    request.addHeader(RateLimitFilter.API_KEY_HEADER, apiKey);
+
+    return request;
+  }
+
+}
@@ -0,0 +1,123 @@
+package ricardotenorio.github.com.beerstock.repository;
+
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.orm.jpa.DataJpaTest;
+import org.springframework.boot.test.autoconfigure.orm.jpa.TestEntityManager;
+import ricardotenorio.github.com.beerstock.builder.BeerDTOBuilder;
+import ricardotenorio.github.com.beerstock.entity.Beer;
+import ricardotenorio.github.com.beerstock.entity.LocationStock;
+import ricardotenorio.github.com.beerstock.mapper.BeerMapper;
+
+import static org.hamcrest.MatcherAssert.assertThat;
+import static org.hamcrest.Matchers.equalTo;
+import static org.hamcrest.Matchers.is;
+
+/**
+ * Runs the guarded stock update against H2, where the bounds are enforced.
+ */
+@DataJpaTest
+public class BeerRepositoryTest {
+
+  @Autowired
+  private BeerRepository beerRepository;
+
+  @Autowired
+  private TestEntityManager entityManager;
+
+  private BeerMapper beerMapper = BeerMapper.INSTANCE;
+
+  @Test
+  void whenAnIncrementReachesExactlyTheMaxThenItIsApplied() {
+
+    // given
+    Beer beer = persistBeer(10, 0);
+
+    // when
+    int updated = beerRepository.addQuantityWithinStock(beer.getId(), 40);
+
+    // then
+    Beer applied = beerRepository.findById(beer.getId()).get();
+    assertThat(updated, is(equalTo(1)));
+    assertThat(applied.getQuantity(), is(equalTo(50)));
+    assertThat(applied.getReorderHeadroom(), is(equalTo(50)));
+    assertThat(applied.getVersion(), is(equalTo(beer.getVersion() + 1)));
+
+  }
+
+  @Test
+  void whenAnIncrementGoesPastTheMaxThenItIsRejected() {
+
+    // given
+    Beer beer = persistBeer(10, 0);
+
+    // when
+    int updated = beerRepository.addQuantityWithinStock(beer.getId(), 41);
+
+    // then
+    assertThat(updated, is(equalTo(0)));
+    assertThat(beerRepository.findById(beer.getId()).get().getQuantity(), is(equalTo(10)));
+
+  }
+
+  @Test
+  void whenADecrementReachesExactlyZeroThenItIsAppliedAndTheNextIsRejected() {
+
+    // given
+    Beer beer = persistBeer(10, 0);
+
+    // when
+    int updated = beerRepository.addQuantityWithinStock(beer.getId(), -10);
+    int belowZero = beerRepository.addQuantityWithinStock(beer.getId(), -1);
+
+    // then
+    assertThat(updated, is(equalTo(1)));
+    assertThat(belowZero, is(equalTo(0)));
+    assertThat(beerRepository.findById(beer.getId()).get().getQuantity(), is(equalTo(0)));
+
+  }
+
+  @Test
+  void whenADecrementWouldTakeReservedUnitsThenItIsRejected() {
+
+    // given
+    Beer beer = persistBeer(10, 4);
+
+    // when
+    int updated = beerRepository.addQuantityWithinStock(beer.getId(), -6);
+    int intoReserved = beerRepository.addQuantityWithinStock(beer.getId(), -1);
+
+    // then
+    assertThat(updated, is(equalTo(1)));
+    assertThat(intoReserved, is(equalTo(0)));
+    assertThat(beerRepository.findById(beer.getId()).get().getQuantity(), is(equalTo(4)));
+
+  }
+
+  @Test
+  void whenStockIsHeldAtLocationsThenIncrementsStopAtTheRemainingMax() {
+
+    // given
+    Beer beer = persistBeer(10, 0);
+    entityManager.persistAndFlush(new LocationStock(null, beer, "warehouse", 15));
+
+    // when
+    int updated = beerRepository.addQuantityWithinStock(beer.getId(), 25);
+    int pastMax = beerRepository.addQuantityWithinStock(beer.getId(), 1);
+
+    // then
+    assertThat(updated, is(equalTo(1)));
+    assertThat(pastMax, is(equalTo(0)));
+    assertThat(beerRepository.findById(beer.getId()).get().getQuantity(), is(equalTo(35)));
+
+  }
+
+  private Beer persistBeer(int quantity, int reserved) {
+    Beer beer = beerMapper.toModel(
+        BeerDTOBuilder.builder().id(null).version(null).quantity(quantity).build().toBeerDTO());
+    beer.setReserved(reserved);
+
+    return entityManager.persistAndFlush(beer);
+  }
+
+}
@@ -0,0 +1,125 @@
+package ricardotenorio.github.com.beerstock.repository;
+
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.orm.jpa.DataJpaTest;
+import org.springframework.boot.test.autoconfigure.orm.jpa.TestEntityManager;
+import org.springframework.context.annotation.Import;
+import ricardotenorio.github.com.beerstock.builder.BeerDTOBuilder;
+import ricardotenorio.github.com.beerstock.dto.StockMovementDTO;
+import ricardotenorio.github.com.beerstock.entity.Beer;
+import ricardotenorio.github.com.beerstock.entity.LocationStock;
+import ricardotenorio.github.com.beerstock.mapper.BeerMapper;
+
+import java.util.List;
+
+import static org.hamcrest.MatcherAssert.assertThat;
+import static org.hamcrest.Matchers.equalTo;
+import static org.hamcrest.Matchers.is;
+
+/**
+ * Runs the batched stock updates against H2, one line per bound.
+ */
+@DataJpaTest
+@Import(StockMovementRepository.class)
+public class StockMovementRepositoryTest {
+
+  @Autowired
+  private StockMovementRepository stockMovementRepository;
+
+  @Autowired
+  private BeerRepository beerRepository;
+
+  @Autowired
+  private TestEntityManager entityManager;
+
+  private BeerMapper beerMapper = BeerMapper.INSTANCE;
+
+  @Test
+  void whenABatchIsAppliedWithinStockThenEachLineIsCheckedAgainstItsBounds() {
+
+    // given
+    Beer exactMax = persistBeer("Exact Max", 10, 0);
+    Beer pastMax = persistBeer("Past Max", 10, 0);
+    Beer exactZero = persistBeer("Exact Zero", 10, 0);
+    Beer belowZero = persistBeer("Below Zero", 10, 0);
+    Beer intoReserved = persistBeer("Into Reserved", 10, 4);
+    Beer located = persistBeer("Located", 10, 0);
+    entityManager.persistAndFlush(new LocationStock(null, located, "warehouse", 15));
+
+    // when
+    int[] updated = stockMovementRepository.addQuantitiesWithinStock(List.of(
+        new StockMovementDTO(exactMax.getId(), 40),
+        new StockMovementDTO(pastMax.getId(), 41),
+        new StockMovementDTO(exactZero.getId(), -10),
+        new StockMovementDTO(belowZero.getId(), -11),
+        new StockMovementDTO(intoReserved.getId(), -7),
+        new StockMovementDTO(located.getId(), 26)));
+    entityManager.clear();
+
+    // then
+    assertThat(updated, is(equalTo(new int[] {1, 0, 1, 0, 0, 0})));
+    assertThat(quantityOf(exactMax), is(equalTo(50)));
+    assertThat(quantityOf(pastMax), is(equalTo(10)));
+    assertThat(quantityOf(exactZero), is(equalTo(0)));
+    assertThat(quantityOf(belowZero), is(equalTo(10)));
+    assertThat(quantityOf(intoReserved), is(equalTo(10)));
+    assertThat(quantityOf(located), is(equalTo(10)));
+
+  }
+
+  @Test
+  void whenLinesStayWithinStockThenTheLocationSumAndReservedUnitsStillAllowThem() {
+
+    // given
+    Beer intoReserved = persistBeer("Into Reserved", 10, 4);
+    Beer located = persistBeer("Located", 10, 0);
+    entityManager.persistAndFlush(new LocationStock(null, located, "warehouse", 15));
+
+    // when
+    int[] updated = stockMovementRepository.addQuantitiesWithinStock(List.of(
+        new StockMovementDTO(intoReserved.getId(), -6),
+        new StockMovementDTO(located.getId(), 25)));
+    entityManager.clear();
+
+    // then
+    assertThat(updated, is(equalTo(new int[] {1, 1})));
+    assertThat(quantityOf(intoReserved), is(equalTo(4)));
+    assertThat(quantityOf(located), is(equalTo(35)));
+
+  }
+
+  @Test
+  void whenQuantitiesAreAddedWithoutTheGuardThenEveryLineIsApplied() {
+
+    // given
+    Beer beer = persistBeer("Brahma", 10, 0);
+
+    // when
+    int[] updated = stockMovementRepository.addQuantities(List.of(
+        new StockMovementDTO(beer.getId(), 5),
+        new StockMovementDTO(beer.getId(), -3)));
+    entityManager.clear();
+
+    // then
+    Beer applied = beerRepository.findById(beer.getId()).get();
+    assertThat(updated, is(equalTo(new int[] {1, 1})));
+    assertThat(applied.getQuantity(), is(equalTo(12)));
+    assertThat(applied.getReorderHeadroom(), is(equalTo(12)));
+    assertThat(applied.getVersion(), is(equalTo(beer.getVersion() + 2)));
+
+  }
+
+  private int quantityOf(Beer beer) {
+    return beerRepository.findById(beer.getId()).get().getQuantity();
+  }
+
+  private Beer persistBeer(String name, int quantity, int reserved) {
+    Beer beer = beerMapper.toModel(BeerDTOBuilder.builder()
+        .id(null).version(null).name(name).quantity(quantity).build().toBeerDTO());
+    beer.setReserved(reserved);
+
+    return entityManager.persistAndFlush(beer);
+  }
+
+}
@@ -0,0 +1,80 @@
+package ricardotenorio.github.com.beerstock.service;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.Mock;
+import org.mockito.junit.jupiter.MockitoExtension;
+import ricardotenorio.github.com.beerstock.builder.BeerDTOBuilder;
+import ricardotenorio.github.com.beerstock.dto.BeerDTO;
+import ricardotenorio.github.com.beerstock.repository.BeerRepository;
+import ricardotenorio.github.com.beerstock.repository.StockMovementRepository;
+
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.util.stream.Stream;
+
+import static org.hamcrest.MatcherAssert.assertThat;
+import static org.hamcrest.Matchers.equalTo;
+import static org.hamcrest.Matchers.is;
+import static org.mockito.Mockito.*;
+
+@ExtendWith(MockitoExtension.class)
+public class BeerExportServiceTest {
+
+  @Mock
+  private BeerRepository beerRepository;
+
+  @Mock
+  private StockMovementRepository stockMovementRepository;
+
+  private final ObjectMapper objectMapper = new ObjectMapper();
+
+  private BeerExportService beerExportService;
+
+  @BeforeEach
+  void setup() {
+    StockLedger stockLedger = new StockLedger(beerRepository, null, stockMovementRepository, null, null,
+        new BeerCache(100, 60000), new CatalogVersion(), false, 1000);
+    beerExportService = new BeerExportService(beerRepository, stockLedger, objectMapper);
+  }
+
+  @Test
+  void whenExportIsCalledThenEachBeerIsWrittenOnItsOwnLine() throws IOException {
+
+    // given
+    BeerDTO firstBeerDTO = BeerDTOBuilder.builder().build().toBeerDTO();
+    BeerDTO secondBeerDTO = BeerDTOBuilder.builder().id(2L).name("Skol").build().toBeerDTO();
+    ByteArrayOutputStream outputStream = new ByteArrayOutputStream();
+
+    // when
+    when(beerRepository.streamAllDTOsByOrderByIdAsc()).thenReturn(Stream.of(firstBeerDTO, secondBeerDTO));
+
+    // then
+    beerExportService.export(outputStream);
+
+    String expected = objectMapper.writeValueAsString(firstBeerDTO) + "\n"
+        + objectMapper.writeValueAsString(secondBeerDTO) + "\n";
+    assertThat(outputStream.toString(StandardCharsets.UTF_8.name()), is(equalTo(expected)));
+
+  }
+
+  @Test
+  void whenCatalogIsEmptyThenNothingIsWritten() throws IOException {
+
+    // given
+    ByteArrayOutputStream outputStream = new ByteArrayOutputStream();
+
+    // when
+    when(beerRepository.streamAllDTOsByOrderByIdAsc()).thenReturn(Stream.empty());
+
+    // then
+    beerExportService.export(outputStream);
+
+    assertThat(outputStream.size(), is(equalTo(0)));
+
+  }
+
+}
@@ -0,0 +1,145 @@
+package ricardotenorio.github.com.beerstock.service;
+
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.Mock;
+import org.mockito.junit.jupiter.MockitoExtension;
+import ricardotenorio.github.com.beerstock.builder.BeerDTOBuilder;
+import ricardotenorio.github.com.beerstock.dto.BeerDTO;
+import ricardotenorio.github.com.beerstock.dto.BeerImportResultDTO;
+import ricardotenorio.github.com.beerstock.exception.BeerImportException;
+import ricardotenorio.github.com.beerstock.repository.BeerRepository;
+import ricardotenorio.github.com.beerstock.repository.LocationStockRepository;
+
+import javax.validation.Validation;
+import java.io.IOException;
+import java.io.Reader;
+import java.io.StringReader;
+import java.util.Arrays;
+import java.util.Collections;
+
+import static org.hamcrest.MatcherAssert.assertThat;
+import static org.hamcrest.Matchers.*;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.mockito.Mockito.*;
+
+@ExtendWith(MockitoExtension.class)
+public class BeerImportServiceTest {
+
+  @Mock
+  private BeerRepository beerRepository;
+
+  @Mock
+  private StockEventPublisher stockEventPublisher;
+
+  @Mock
+  private StockJournal stockJournal;
+
+  @Mock
+  private LocationStockRepository locationStockRepository;
+
+  private BeerImportService beerImportService;
+
+  @BeforeEach
+  void setup() {
+    beerImportService = new BeerImportService(beerRepository,
+        Validation.buildDefaultValidatorFactory().getValidator(), new CatalogVersion(),
+        stockEventPublisher,
+        new StockTotals(beerRepository, locationStockRepository, new SimpleMeterRegistry()),
+        stockJournal, new BeerNameIndex(beerRepository));
+  }
+
+  @Test
+  void whenBeersAreImportedThenDuplicatesAndInvalidRowsAreRejected() throws BeerImportException {
+
+    // given
+    BeerDTO newBeerDTO = BeerDTOBuilder.builder().name("Skol").build().toBeerDTO();
+    BeerDTO registeredBeerDTO = BeerDTOBuilder.builder().build().toBeerDTO();
+    BeerDTO repeatedBeerDTO = BeerDTOBuilder.builder().name("Skol").build().toBeerDTO();
+    BeerDTO invalidBeerDTO = BeerDTOBuilder.builder().name("Bohemia").build().toBeerDTO();
+    invalidBeerDTO.setBrand(null);
+
+    // when
+    when(beerRepository.findExistingNames(anyCollection()))
+        .thenReturn(Collections.singletonList(registeredBeerDTO.getName()));
+
+    // then
+    BeerImportResultDTO result = beerImportService.importBeers(
+        Arrays.asList(newBeerDTO, registeredBeerDTO, repeatedBeerDTO, invalidBeerDTO));
+
+    assertThat(result.getImported(), is(equalTo(1)));
+    assertThat(result.getRejected(), hasSize(3));
+    assertThat(result.getRejected().get(0).getLine(), is(equalTo(2)));
+    assertThat(result.getRejected().get(1).getLine(), is(equalTo(3)));
+    assertThat(result.getRejected().get(2).getLine(), is(equalTo(4)));
+    verify(beerRepository, times(1)).saveAll(anyList());
+
+  }
+
+  @Test
+  void whenCsvIsImportedThenMalformedRowsAreRejected() throws BeerImportException, IOException {
+
+    // given
+    String csv = "name,brand,max,quantity,type\n"
+        + "\"Skol, Puro Malte\",Ambev,50,10,lager\n"
+        + "Bohemia,Ambev,fifty,10,LAGER\n";
+
+    // when
+    when(beerRepository.findExistingNames(anyCollection())).thenReturn(Collections.emptyList());
+
+    // then
+    BeerImportResultDTO result = beerImportService.importCsv(new StringReader(csv));
+
+    assertThat(result.getImported(), is(equalTo(1)));
+    assertThat(result.getRejected(), hasSize(1));
+    assertThat(result.getRejected().get(0).getLine(), is(equalTo(3)));
+    assertThat(result.getRejected().get(0).getName(), is(equalTo("Bohemia")));
+
+  }
+
+  @Test
+  void whenCsvHasTooManyRowsThenItIsRefusedWithoutReadingTheRest() {
+
+    // given
+    Reader endlessCsv = new Reader() {
+
+      private final StringBuilder pending = new StringBuilder("name,brand,max,quantity,type\n");
+      private int row;
+
+      @Override
+      public int read(char[] buffer, int offset, int length) {
+        while (pending.length() < length) {
+          pending.append("Beer ").append(++row).append(",Ambev,50,10,LAGER\n");
+        }
+        pending.getChars(0, length, buffer, offset);
+        pending.delete(0, length);
+
+        return length;
+      }
+
+      @Override
+      public void close() {
+      }
+
+    };
+
+    // then
+    assertThrows(BeerImportException.class, () -> beerImportService.importCsv(endlessCsv));
+    verify(beerRepository, never()).findExistingNames(anyCollection());
+
+  }
+
+  @Test
+  void whenCsvHeaderMissesAColumnThenThrowAnException() {
+
+    // given
+    String csv = "name,brand,max,quantity\nSkol,Ambev,50,10\n";
+
+    // then
+    assertThrows(BeerImportException.class, () -> beerImportService.importCsv(new StringReader(csv)));
+
+  }
+
+}
@@ -0,0 +1,100 @@
+package ricardotenorio.github.com.beerstock.service;
+
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.Mock;
+import org.mockito.junit.jupiter.MockitoExtension;
+import ricardotenorio.github.com.beerstock.builder.BeerDTOBuilder;
+import ricardotenorio.github.com.beerstock.dto.BeerSuggestionDTO;
+import ricardotenorio.github.com.beerstock.mapper.BeerMapper;
+import ricardotenorio.github.com.beerstock.repository.BeerRepository;
+
+import java.util.Arrays;
+import java.util.List;
+
+import static org.hamcrest.MatcherAssert.assertThat;
+import static org.hamcrest.Matchers.*;
+import static org.mockito.Mockito.*;
+
+@ExtendWith(MockitoExtension.class)
+public class BeerNameIndexTest {
+
+  @Mock
+  private BeerRepository beerRepository;
+
+  private BeerMapper beerMapper = BeerMapper.INSTANCE;
+
+  private BeerNameIndex beerNameIndex;
+
+  @BeforeEach
+  void setup() {
+    when(beerRepository.findAll()).thenReturn(Arrays.asList(
+        beerMapper.toModel(BeerDTOBuilder.builder().id(1L).name("Brahma").brand("Ambev").build().toBeerDTO()),
+        beerMapper.toModel(BeerDTOBuilder.builder().id(2L).name("Brahma Chopp").brand("Ambev").build().toBeerDTO()),
+        beerMapper.toModel(BeerDTOBuilder.builder().id(3L).name("Bohemia").brand("Ambev").build().toBeerDTO()),
+        beerMapper.toModel(BeerDTOBuilder.builder().id(4L).name("Baden Baden").brand("Brasil Kirin").build().toBeerDTO())));
+
+    beerNameIndex = new BeerNameIndex(beerRepository);
+    beerNameIndex.load();
+  }
+
+  @Test
+  void whenAPrefixIsTypedThenExactNameRanksFirst() {
+
+    // when
+    List<BeerSuggestionDTO> suggestions = beerNameIndex.suggest("brahma", 10);
+
+    // then
+    assertThat(suggestions.get(0).getId(), is(equalTo(1L)));
+    assertThat(suggestions.get(1).getId(), is(equalTo(2L)));
+
+  }
+
+  @Test
+  void whenAWordInsideTheNameIsTypedThenItIsSuggested() {
+
+    // when
+    List<BeerSuggestionDTO> suggestions = beerNameIndex.suggest("cho", 10);
+
+    // then
+    assertThat(suggestions.get(0).getName(), is(equalTo("Brahma Chopp")));
+
+  }
+
+  @Test
+  void whenANameIsMisspelledThenItIsStillSuggested() {
+
+    // when
+    List<BeerSuggestionDTO> suggestions = beerNameIndex.suggest("Bohemai", 10);
+
+    // then
+    assertThat(suggestions, hasSize(greaterThanOrEqualTo(1)));
+    assertThat(suggestions.get(0).getName(), is(equalTo("Bohemia")));
+
+  }
+
+  @Test
+  void whenBrandIsTypedThenItsBeersAreSuggestedWithAccentsIgnored() {
+
+    // when
+    List<BeerSuggestionDTO> suggestions = beerNameIndex.suggest("Kírin", 10);
+
+    // then
+    assertThat(suggestions, hasSize(1));
+    assertThat(suggestions.get(0).getId(), is(equalTo(4L)));
+
+  }
+
+  @Test
+  void whenABeerIsRemovedThenItIsNoLongerSuggested() {
+
+    // when
+    beerNameIndex.remove(1L);
+
+    // then
+    assertThat(beerNameIndex.suggest("brahma", 10), everyItem(hasProperty("id", not(equalTo(1L)))));
+
+  }
+
+}
@@ -1,19 +1,37 @@
 package ricardotenorio.github.com.beerstock.service;
 
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.BeforeEach;
 import org.junit.jupiter.api.Test;
 import org.junit.jupiter.api.extension.ExtendWith;
-import org.mockito.InjectMocks;
+import org.mockito.ArgumentCaptor;
+import org.mockito.ArgumentMatchers;
 import org.mockito.Mock;
 import org.mockito.junit.jupiter.MockitoExtension;
+import org.springframework.data.domain.Page;
+import org.springframework.data.domain.PageImpl;
+import org.springframework.data.domain.Pageable;
+import org.springframework.data.domain.Sort;
+import org.springframework.data.jpa.domain.Specification;
 import ricardotenorio.github.com.beerstock.builder.BeerDTOBuilder;
 import ricardotenorio.github.com.beerstock.dto.BeerDTO;
+import ricardotenorio.github.com.beerstock.dto.BeerSearchDTO;
+import ricardotenorio.github.com.beerstock.dto.BeerSliceDTO;
+import ricardotenorio.github.com.beerstock.dto.StockMovementDTO;
+import ricardotenorio.github.com.beerstock.dto.StockMovementResultDTO;
 import ricardotenorio.github.com.beerstock.entity.Beer;
+import ricardotenorio.github.com.beerstock.enums.BeerSortField;
+import ricardotenorio.github.com.beerstock.enums.BeerType;
+import ricardotenorio.github.com.beerstock.enums.StockMovementStatus;
 import ricardotenorio.github.com.beerstock.exception.BeerAlreadyRegisteredException;
 import ricardotenorio.github.com.beerstock.exception.BeerNotFoundException;
 import ricardotenorio.github.com.beerstock.exception.BeerStockExceededException;
 import ricardotenorio.github.com.beerstock.mapper.BeerMapper;
 import ricardotenorio.github.com.beerstock.repository.BeerRepository;
+import ricardotenorio.github.com.beerstock.repository.LocationStockRepository;
+import ricardotenorio.github.com.beerstock.repository.StockMovementRepository;
 
+import java.util.Arrays;
 import java.util.Collections;
 import java.util.List;
 import java.util.Optional;
@@ -32,11 +50,38 @@ public class BeerServiceTest {
   @Mock
   private BeerRepository beerRepository;
 
+  @Mock
+  private StockMovementRepository stockMovementRepository;
+
+  @Mock
+  private StockEventPublisher stockEventPublisher;
+
+  @Mock
+  private StockJournal stockJournal;
+
+  @Mock
+  private LocationStockRepository locationStockRepository;
+
   private BeerMapper beerMapper = BeerMapper.INSTANCE;
 
-  @InjectMocks
+  private StockTotals stockTotals;
+
   private BeerService beerService;
 
+  @BeforeEach
+  void setup() {
+    BeerCache beerCache = new BeerCache(100, 60000);
+    CatalogVersion catalogVersion = new CatalogVersion();
+    stockTotals = new StockTotals(beerRepository, locationStockRepository,
+        new SimpleMeterRegistry());
+    beerService = new BeerService(beerRepository,
+        new StockLedger(beerRepository, locationStockRepository, stockMovementRepository, stockJournal, null,
+            beerCache, catalogVersion, false, 1000),
+        stockMovementRepository, beerCache, catalogVersion, stockEventPublisher,
+        new StockAlertEvaluator(stockEventPublisher, 0.9), stockTotals,
+        locationStockRepository, stockJournal, new BeerNameIndex(beerRepository));
+  }
+
   @Test
   void whenBeerInformedThenItShouldBeCreated() throws BeerAlreadyRegisteredException {
 
@@ -46,7 +91,7 @@ public class BeerServiceTest {
 
     // when
     when(beerRepository.findByName(expectedBeerDTO.getName())).thenReturn(Optional.empty());
-    when(beerRepository.save(expectedSavedBeer)).thenReturn(expectedSavedBeer);
+    when(beerRepository.save(ArgumentMatchers.any(Beer.class))).thenReturn(expectedSavedBeer);
 
     // then
     BeerDTO createdBeerDTO = beerService.createBeer(expectedBeerDTO);
@@ -77,16 +122,57 @@ public class BeerServiceTest {
 
     // given
     BeerDTO expectedFoundBeerDTO = BeerDTOBuilder.builder().build().toBeerDTO();
-    Beer expectedFoundBeer = beerMapper.toModel(expectedFoundBeerDTO);
 
     // when
-    when(beerRepository.findByName(expectedFoundBeer.getName()))
-        .thenReturn(Optional.of(expectedFoundBeer));
+    when(beerRepository.findDTOByName(expectedFoundBeerDTO.getName()))
+        .thenReturn(Optional.of(expectedFoundBeerDTO));
+
+    // then
+    BeerDTO foundBeerDTO = beerService.findByName(expectedFoundBeerDTO.getName());
+
+    assertThat(foundBeerDTO, is(equalTo(expectedFoundBeerDTO)));
+
+  }
+
+  @Test
+  void whenBeerIsFoundTwiceThenTheSecondLookupIsServedFromCache() throws BeerNotFoundException {
+
+    // given
+    BeerDTO expectedFoundBeerDTO = BeerDTOBuilder.builder().build().toBeerDTO();
+
+    // when
+    when(beerRepository.findDTOByName(expectedFoundBeerDTO.getName()))
+        .thenReturn(Optional.of(expectedFoundBeerDTO));
 
     // then
+    beerService.findByName(expectedFoundBeerDTO.getName());
     BeerDTO foundBeerDTO = beerService.findByName(expectedFoundBeerDTO.getName());
 
     assertThat(foundBeerDTO, is(equalTo(expectedFoundBeerDTO)));
+    verify(beerRepository, times(1)).findDTOByName(expectedFoundBeerDTO.getName());
+
+  }
+
+  @Test
+  void whenStockChangesThenCachedBeerIsNotServedStale() throws BeerNotFoundException, BeerStockExceededException {
+
+    // given
+    BeerDTO expectedBeerDTO = BeerDTOBuilder.builder().build().toBeerDTO();
+    Beer updatedBeer = beerMapper.toModel(expectedBeerDTO);
+    updatedBeer.setQuantity(expectedBeerDTO.getQuantity() + 1);
+
+    // when
+    when(beerRepository.findDTOByName(expectedBeerDTO.getName()))
+        .thenReturn(Optional.of(expectedBeerDTO), Optional.of(beerMapper.toDTO(updatedBeer)));
+    when(beerRepository.addQuantityWithinStock(expectedBeerDTO.getId(), 1)).thenReturn(1);
+    when(beerRepository.findById(expectedBeerDTO.getId())).thenReturn(Optional.of(updatedBeer));
+
+    // then
+    beerService.findByName(expectedBeerDTO.getName());
+    beerService.increment(expectedBeerDTO.getId(), 1);
+    BeerDTO foundBeerDTO = beerService.findByName(expectedBeerDTO.getName());
+
+    assertThat(foundBeerDTO.getQuantity(), is(equalTo(updatedBeer.getQuantity())));
 
   }
 
@@ -97,7 +183,7 @@ public class BeerServiceTest {
     BeerDTO expectedFoundBeerDTO = BeerDTOBuilder.builder().build().toBeerDTO();
 
     // when
-    when(beerRepository.findByName(expectedFoundBeerDTO.getName()))
+    when(beerRepository.findDTOByName(expectedFoundBeerDTO.getName()))
         .thenReturn(Optional.empty());
 
     // then
@@ -110,10 +196,9 @@ public class BeerServiceTest {
 
     // given
     BeerDTO expectedFoundBeerDTO = BeerDTOBuilder.builder().build().toBeerDTO();
-    Beer expectedFoundBeer = beerMapper.toModel(expectedFoundBeerDTO);
 
     // when
-    when(beerRepository.findAll()).thenReturn(Collections.singletonList(expectedFoundBeer));
+    when(beerRepository.findAllDTOs()).thenReturn(Collections.singletonList(expectedFoundBeerDTO));
 
     // then
     List<BeerDTO> foundBeersDTO = beerService.listAll();
@@ -127,7 +212,7 @@ public class BeerServiceTest {
   void whenListBeerIsCalledThenReturnAnEmptyListOfBeers() {
 
     // when
-    when(beerRepository.findAll()).thenReturn(Collections.EMPTY_LIST);
+    when(beerRepository.findAllDTOs()).thenReturn(Collections.emptyList());
 
     // then
     List<BeerDTO> foundBeersDTO = beerService.listAll();
@@ -136,6 +221,63 @@ public class BeerServiceTest {
 
   }
 
+  @Test
+  void whenListAfterFillsThePageThenReturnANextCursor() {
+
+    // given
+    BeerDTO expectedFoundBeerDTO = BeerDTOBuilder.builder().build().toBeerDTO();
+    Beer expectedFoundBeer = beerMapper.toModel(expectedFoundBeerDTO);
+
+    // when
+    when(beerRepository.findByIdGreaterThanOrderByIdAsc(eq(0L), any()))
+        .thenReturn(Collections.singletonList(expectedFoundBeer));
+
+    // then
+    BeerSliceDTO slice = beerService.listAfter(0L, 1);
+
+    assertThat(slice.getBeers().get(0), is(equalTo(expectedFoundBeerDTO)));
+    assertThat(slice.getNextCursor(), is(equalTo(expectedFoundBeerDTO.getId())));
+
+  }
+
+  @Test
+  void whenSearchIsCalledThenTheSortFieldIsTieBrokenById() {
+
+    // given
+    BeerDTO expectedFoundBeerDTO = BeerDTOBuilder.builder().build().toBeerDTO();
+    Beer expectedFoundBeer = beerMapper.toModel(expectedFoundBeerDTO);
+    BeerSearchDTO search = BeerSearchDTO.builder().type(BeerType.LAGER).minQuantity(5).build();
+    ArgumentCaptor<Pageable> pageable = ArgumentCaptor.forClass(Pageable.class);
+
+    // when
+    when(beerRepository.findAll(ArgumentMatchers.<Specification<Beer>>any(), pageable.capture()))
+        .thenReturn(new PageImpl<>(Collections.singletonList(expectedFoundBeer)));
+
+    // then
+    Page<BeerDTO> result = beerService.search(search, BeerSortField.QUANTITY, Sort.Direction.DESC, 0, 20);
+
+    assertThat(result.getContent().get(0), is(equalTo(expectedFoundBeerDTO)));
+    assertThat(pageable.getValue().getPageSize(), is(equalTo(20)));
+    assertThat(pageable.getValue().getSort(),
+        is(equalTo(Sort.by(Sort.Direction.DESC, "quantity").and(Sort.by("id")))));
+
+  }
+
+  @Test
+  void whenListAfterReturnsAPartialPageThenThereIsNoNextCursor() {
+
+    // when
+    when(beerRepository.findByIdGreaterThanOrderByIdAsc(eq(0L), any()))
+        .thenReturn(Collections.emptyList());
+
+    // then
+    BeerSliceDTO slice = beerService.listAfter(0L, 10);
+
+    assertThat(slice.getBeers(), is(empty()));
+    assertThat(slice.getNextCursor(), is(nullValue()));
+
+  }
+
   @Test
   void whenExclusionIsCalledWithValidIdThenABeerShouldBeDeleted() throws BeerNotFoundException {
 
@@ -144,15 +286,16 @@ public class BeerServiceTest {
     Beer expectedDeletedBeer = beerMapper.toModel(expectedDeletedBeerDTO);
 
     // when
-    when(beerRepository.findById(expectedDeletedBeerDTO.getId()))
+    when(beerRepository.findByIdForUpdate(expectedDeletedBeerDTO.getId()))
         .thenReturn(Optional.of(expectedDeletedBeer));
     doNothing().when(beerRepository).deleteById(expectedDeletedBeerDTO.getId());
 
     // then
     beerService.deleteById(expectedDeletedBeerDTO.getId());
 
-    verify(beerRepository, times(1)).findById(expectedDeletedBeerDTO.getId());
+    verify(beerRepository, times(1)).findByIdForUpdate(expectedDeletedBeerDTO.getId());
     verify(beerRepository, times(1)).deleteById(expectedDeletedBeerDTO.getId());
+    verify(locationStockRepository, times(1)).deleteByBeerId(expectedDeletedBeerDTO.getId());
 
   }
 
@@ -163,19 +306,22 @@ public class BeerServiceTest {
 
     // given
     BeerDTO expectedBeerDTO = BeerDTOBuilder.builder().build().toBeerDTO();
-    Beer expectedBeer = beerMapper.toModel(expectedBeerDTO);
     int quantityToIncrement = 10;
     int expectedQuantityAfterIncrement = expectedBeerDTO.getQuantity() + quantityToIncrement;
+    Beer expectedUpdatedBeer = beerMapper.toModel(expectedBeerDTO);
+    expectedUpdatedBeer.setQuantity(expectedQuantityAfterIncrement);
 
     // when
-    when(beerRepository.findById(expectedBeerDTO.getId())).thenReturn(Optional.of(expectedBeer));
-    when(beerRepository.save(expectedBeer)).thenReturn(expectedBeer);
+    when(beerRepository.addQuantityWithinStock(expectedBeerDTO.getId(), quantityToIncrement)).thenReturn(1);
+    when(beerRepository.findById(expectedBeerDTO.getId())).thenReturn(Optional.of(expectedUpdatedBeer));
 
     // then
     BeerDTO incrementedBeerDTO = beerService.increment(expectedBeerDTO.getId(), quantityToIncrement);
 
     assertThat(expectedQuantityAfterIncrement, equalTo(incrementedBeerDTO.getQuantity()));
     assertThat(expectedQuantityAfterIncrement, lessThanOrEqualTo(expectedBeerDTO.getMax()));
+    assertThat(stockTotals.get(BeerType.LAGER), is(equalTo((long) quantityToIncrement)));
+    verify(stockJournal, times(1)).record(expectedBeerDTO.getId(), quantityToIncrement);
 
   }
 
@@ -184,11 +330,11 @@ public class BeerServiceTest {
 
     // given
     BeerDTO expectedBeerDTO = BeerDTOBuilder.builder().build().toBeerDTO();
-    Beer expectedBeer = beerMapper.toModel(expectedBeerDTO);
     int quantityToIncrement = 90;
 
     // when
-    when(beerRepository.findById(expectedBeerDTO.getId())).thenReturn(Optional.of(expectedBeer));
+    when(beerRepository.addQuantityWithinStock(expectedBeerDTO.getId(), quantityToIncrement)).thenReturn(0);
+    when(beerRepository.existsById(expectedBeerDTO.getId())).thenReturn(true);
 
     // then
     assertThrows(BeerStockExceededException.class,
@@ -197,19 +343,18 @@ public class BeerServiceTest {
   }
 
   @Test
-  void whenIncrementAfterSumIsGreaterThanMaxThenThrowException() {
+  void whenIncrementIsCalledWithInvalidIdThenThrowException() {
 
     // given
-    BeerDTO expectedBeerDTO = BeerDTOBuilder.builder().build().toBeerDTO();
-    Beer expectedBeer = beerMapper.toModel(expectedBeerDTO);
-    int quantityToIncrement = 45;
+    int quantityToIncrement = 10;
 
     // when
-    when(beerRepository.findById(expectedBeerDTO.getId())).thenReturn(Optional.of(expectedBeer));
+    when(beerRepository.addQuantityWithinStock(INVALID_BEER_ID, quantityToIncrement)).thenReturn(0);
+    when(beerRepository.existsById(INVALID_BEER_ID)).thenReturn(false);
 
     // then
-    assertThrows(BeerStockExceededException.class,
-        () -> beerService.increment(expectedBeerDTO.getId(), quantityToIncrement));
+    assertThrows(BeerNotFoundException.class,
+        () -> beerService.increment(INVALID_BEER_ID, quantityToIncrement));
 
   }
 
@@ -218,11 +363,11 @@ public class BeerServiceTest {
 
     // given
     BeerDTO expectedBeerDTO = BeerDTOBuilder.builder().build().toBeerDTO();
-    Beer expectedBeer = beerMapper.toModel(expectedBeerDTO);
     int quantityToDecrement = 20;
 
     // when
-    when(beerRepository.findById(expectedBeerDTO.getId())).thenReturn(Optional.of(expectedBeer));
+    when(beerRepository.addQuantityWithinStock(expectedBeerDTO.getId(), -quantityToDecrement)).thenReturn(0);
+    when(beerRepository.existsById(expectedBeerDTO.getId())).thenReturn(true);
 
     // then
     assertThrows(BeerStockExceededException.class,
@@ -230,4 +375,55 @@ public class BeerServiceTest {
 
   }
 
+  @Test
+  void whenDecrementIsCalledThenDecrementBeerStock() throws BeerNotFoundException, BeerStockExceededException {
+
+    // given
+    BeerDTO expectedBeerDTO = BeerDTOBuilder.builder().build().toBeerDTO();
+    int quantityToDecrement = 5;
+    int expectedQuantityAfterDecrement = expectedBeerDTO.getQuantity() - quantityToDecrement;
+    Beer expectedUpdatedBeer = beerMapper.toModel(expectedBeerDTO);
+    expectedUpdatedBeer.setQuantity(expectedQuantityAfterDecrement);
+
+    // when
+    when(beerRepository.addQuantityWithinStock(expectedBeerDTO.getId(), -quantityToDecrement)).thenReturn(1);
+    when(beerRepository.findById(expectedBeerDTO.getId())).thenReturn(Optional.of(expectedUpdatedBeer));
+
+    // then
+    BeerDTO decrementedBeerDTO = beerService.decrement(expectedBeerDTO.getId(), quantityToDecrement);
+
+    assertThat(expectedQuantityAfterDecrement, equalTo(decrementedBeerDTO.getQuantity()));
+    assertThat(expectedQuantityAfterDecrement, greaterThanOrEqualTo(0));
+
+  }
+
+  // stock movements
+
+  @Test
+  void whenStockMovementsAreAppliedThenEachLineHasItsOutcome() {
+
+    // given
+    StockMovementDTO applied = StockMovementDTO.builder().id(1L).delta(5).build();
+    StockMovementDTO exceeded = StockMovementDTO.builder().id(1L).delta(90).build();
+    StockMovementDTO notFound = StockMovementDTO.builder().id(INVALID_BEER_ID + 1).delta(-1).build();
+    List<StockMovementDTO> movements = Arrays.asList(applied, exceeded, notFound);
+
+    Beer updatedBeer = beerMapper.toModel(BeerDTOBuilder.builder().id(1L).quantity(15).build().toBeerDTO());
+
+    // when
+    when(stockMovementRepository.addQuantitiesWithinStock(movements)).thenReturn(new int[] {1, 0, 0});
+    when(beerRepository.findExistingIds(anyCollection())).thenReturn(Collections.singletonList(1L));
+    when(beerRepository.findAllById(Collections.singleton(1L))).thenReturn(Collections.singletonList(updatedBeer));
+
+    // then
+    List<StockMovementResultDTO> results = beerService.applyStockMovements(movements);
+
+    assertThat(results.get(0).getStatus(), is(equalTo(StockMovementStatus.APPLIED)));
+    assertThat(results.get(0).getQuantity(), is(equalTo(15)));
+    assertThat(results.get(1).getQuantity(), is(nullValue()));
+    assertThat(results.get(1).getStatus(), is(equalTo(StockMovementStatus.STOCK_EXCEEDED)));
+    assertThat(results.get(2).getStatus(), is(equalTo(StockMovementStatus.NOT_FOUND)));
+
+  }
+
 }
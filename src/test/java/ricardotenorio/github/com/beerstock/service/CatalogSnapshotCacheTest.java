@@ -0,0 +1,86 @@
+package ricardotenorio.github.com.beerstock.service;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.Mock;
+import org.mockito.junit.jupiter.MockitoExtension;
+import ricardotenorio.github.com.beerstock.builder.BeerDTOBuilder;
+import ricardotenorio.github.com.beerstock.dto.BeerDTO;
+import ricardotenorio.github.com.beerstock.repository.BeerRepository;
+import ricardotenorio.github.com.beerstock.repository.StockMovementRepository;
+
+import java.io.ByteArrayInputStream;
+import java.io.IOException;
+import java.util.Collections;
+import java.util.List;
+import java.util.zip.GZIPInputStream;
+
+import static org.hamcrest.MatcherAssert.assertThat;
+import static org.hamcrest.Matchers.*;
+import static org.mockito.Mockito.*;
+
+@ExtendWith(MockitoExtension.class)
+public class CatalogSnapshotCacheTest {
+
+  @Mock
+  private BeerRepository beerRepository;
+
+  @Mock
+  private StockMovementRepository stockMovementRepository;
+
+  private final ObjectMapper objectMapper = new ObjectMapper();
+
+  private final CatalogVersion catalogVersion = new CatalogVersion();
+
+  private CatalogSnapshotCache catalogSnapshotCache;
+
+  @BeforeEach
+  void setup() {
+    StockLedger stockLedger = new StockLedger(beerRepository, null, stockMovementRepository, null, null,
+        new BeerCache(100, 60000), new CatalogVersion(), false, 1000);
+    catalogSnapshotCache = new CatalogSnapshotCache(beerRepository, stockLedger, catalogVersion, objectMapper);
+  }
+
+  @Test
+  void whenCatalogIsUnchangedThenTheSameSnapshotIsServed() throws IOException {
+
+    // given
+    List<BeerDTO> beerDTOs = Collections.singletonList(BeerDTOBuilder.builder().build().toBeerDTO());
+
+    // when
+    when(beerRepository.findAllDTOs()).thenReturn(beerDTOs);
+
+    // then
+    CatalogSnapshotCache.Snapshot first = catalogSnapshotCache.current();
+    CatalogSnapshotCache.Snapshot second = catalogSnapshotCache.current();
+
+    assertThat(second, is(sameInstance(first)));
+    assertThat(first.getETag(), is(equalTo(catalogVersion.eTag())));
+    assertThat(first.getJson(), is(equalTo(objectMapper.writeValueAsBytes(beerDTOs))));
+    try (GZIPInputStream gzip = new GZIPInputStream(new ByteArrayInputStream(first.getGzip()))) {
+      assertThat(gzip.readAllBytes(), is(equalTo(first.getJson())));
+    }
+    verify(beerRepository, times(1)).findAllDTOs();
+
+  }
+
+  @Test
+  void whenCatalogVersionIsBumpedThenTheSnapshotIsRebuilt() throws IOException {
+
+    // when
+    when(beerRepository.findAllDTOs()).thenReturn(Collections.emptyList());
+    CatalogSnapshotCache.Snapshot first = catalogSnapshotCache.current();
+    catalogVersion.bump();
+
+    // then
+    CatalogSnapshotCache.Snapshot second = catalogSnapshotCache.current();
+
+    assertThat(second, is(not(sameInstance(first))));
+    assertThat(second.getETag(), is(equalTo(catalogVersion.eTag())));
+    verify(beerRepository, times(2)).findAllDTOs();
+
+  }
+
+}
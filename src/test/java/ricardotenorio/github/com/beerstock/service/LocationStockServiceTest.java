@@ -0,0 +1,191 @@
+package ricardotenorio.github.com.beerstock.service;
+
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.ArgumentMatchers;
+import org.mockito.Mock;
+import org.mockito.junit.jupiter.MockitoExtension;
+import ricardotenorio.github.com.beerstock.builder.BeerDTOBuilder;
+import ricardotenorio.github.com.beerstock.dto.BeerDTO;
+import ricardotenorio.github.com.beerstock.dto.BeerStockDTO;
+import ricardotenorio.github.com.beerstock.dto.LocationStockDTO;
+import ricardotenorio.github.com.beerstock.entity.Beer;
+import ricardotenorio.github.com.beerstock.entity.LocationStock;
+import ricardotenorio.github.com.beerstock.enums.BeerType;
+import ricardotenorio.github.com.beerstock.exception.BeerNotFoundException;
+import ricardotenorio.github.com.beerstock.exception.BeerStockExceededException;
+import ricardotenorio.github.com.beerstock.exception.LocationStockUnavailableException;
+import ricardotenorio.github.com.beerstock.mapper.BeerMapper;
+import ricardotenorio.github.com.beerstock.repository.BeerRepository;
+import ricardotenorio.github.com.beerstock.repository.LocationStockRepository;
+
+import java.util.Arrays;
+import java.util.Optional;
+
+import static org.hamcrest.MatcherAssert.assertThat;
+import static org.hamcrest.Matchers.*;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.mockito.Mockito.*;
+
+@ExtendWith(MockitoExtension.class)
+public class LocationStockServiceTest {
+
+  private static final String LOCATION = "warehouse-1";
+
+  @Mock
+  private BeerRepository beerRepository;
+
+  @Mock
+  private LocationStockRepository locationStockRepository;
+
+  @Mock
+  private StockLedger stockLedger;
+
+  @Mock
+  private StockJournal stockJournal;
+
+  private BeerMapper beerMapper = BeerMapper.INSTANCE;
+
+  private StockTotals stockTotals;
+
+  private LocationStockService locationStockService;
+
+  @BeforeEach
+  void setup() {
+    stockTotals = new StockTotals(beerRepository, locationStockRepository, new SimpleMeterRegistry());
+    locationStockService = new LocationStockService(beerRepository, locationStockRepository,
+        stockTotals, stockLedger, stockJournal);
+  }
+
+  @Test
+  void whenFirstIncrementAtALocationThenItsStockRowIsCreated() throws Exception {
+
+    // given
+    BeerDTO beerDTO = BeerDTOBuilder.builder().build().toBeerDTO();
+    Beer beer = beerMapper.toModel(beerDTO);
+    int quantityToIncrement = 5;
+
+    // when
+    when(beerRepository.findByIdForUpdate(beerDTO.getId())).thenReturn(Optional.of(beer));
+    when(locationStockRepository.sumQuantityByBeerId(beerDTO.getId())).thenReturn(0L);
+    when(locationStockRepository.addQuantityAtLocation(beerDTO.getId(), LOCATION, quantityToIncrement))
+        .thenReturn(0);
+    when(locationStockRepository.findByBeerIdAndLocation(beerDTO.getId(), LOCATION))
+        .thenReturn(Optional.of(new LocationStock(1L, beer, LOCATION, quantityToIncrement)));
+
+    // then
+    LocationStockDTO locationStockDTO = locationStockService.increment(beerDTO.getId(), LOCATION,
+        quantityToIncrement);
+
+    assertThat(locationStockDTO.getQuantity(), is(equalTo(quantityToIncrement)));
+    assertThat(stockTotals.get(BeerType.LAGER), is(equalTo((long) quantityToIncrement)));
+    verify(locationStockRepository, times(1)).saveAndFlush(ArgumentMatchers.any(LocationStock.class));
+    verify(stockJournal, times(1)).record(beerDTO.getId(), quantityToIncrement);
+
+  }
+
+  @Test
+  void whenIncrementExceedsMaxAcrossLocationsThenThrowAnException() {
+
+    // given
+    BeerDTO beerDTO = BeerDTOBuilder.builder().build().toBeerDTO();
+    Beer beer = beerMapper.toModel(beerDTO);
+    long stockedAtLocations = beerDTO.getMax() - beerDTO.getQuantity();
+
+    // when
+    when(beerRepository.findByIdForUpdate(beerDTO.getId())).thenReturn(Optional.of(beer));
+    when(locationStockRepository.sumQuantityByBeerId(beerDTO.getId())).thenReturn(stockedAtLocations);
+
+    // then
+    assertThrows(BeerStockExceededException.class,
+        () -> locationStockService.increment(beerDTO.getId(), LOCATION, 1));
+    verify(locationStockRepository, never()).addQuantityAtLocation(beerDTO.getId(), LOCATION, 1);
+
+  }
+
+  @Test
+  void whenDecrementGoesBelowZeroAtALocationThenThrowAnException() {
+
+    // given
+    BeerDTO beerDTO = BeerDTOBuilder.builder().build().toBeerDTO();
+    Beer beer = beerMapper.toModel(beerDTO);
+
+    // when
+    when(beerRepository.findById(beerDTO.getId())).thenReturn(Optional.of(beer));
+    when(locationStockRepository.addQuantityAtLocation(beerDTO.getId(), LOCATION, -5)).thenReturn(0);
+
+    // then
+    assertThrows(BeerStockExceededException.class,
+        () -> locationStockService.decrement(beerDTO.getId(), LOCATION, 5));
+
+  }
+
+  @Test
+  void whenStockIsRequestedThenLocationsAreSummedWithUnassignedStock() throws BeerNotFoundException {
+
+    // given
+    BeerDTO beerDTO = BeerDTOBuilder.builder().build().toBeerDTO();
+    Beer beer = beerMapper.toModel(beerDTO);
+    beer.setReserved(4);
+
+    // when
+    when(beerRepository.findById(beerDTO.getId())).thenReturn(Optional.of(beer));
+    when(locationStockRepository.findByBeerIdOrderByLocationAsc(beerDTO.getId()))
+        .thenReturn(Arrays.asList(new LocationStock(1L, beer, "warehouse-1", 7),
+            new LocationStock(2L, beer, "warehouse-2", 3)));
+
+    // then
+    BeerStockDTO beerStockDTO = locationStockService.findStock(beerDTO.getId());
+
+    assertThat(beerStockDTO.getLocations(), hasSize(2));
+    assertThat(beerStockDTO.getUnassigned(), is(equalTo(beerDTO.getQuantity())));
+    assertThat(beerStockDTO.getAvailable(), is(equalTo(beerDTO.getQuantity() - 4)));
+    assertThat(beerStockDTO.getTotal(), is(equalTo(beerDTO.getQuantity() + 10L)));
+
+  }
+
+  @Test
+  void whenTheLedgerHoldsUnflushedChangesThenStockShowsTheLedgerQuantity() throws BeerNotFoundException {
+
+    // given
+    BeerDTO beerDTO = BeerDTOBuilder.builder().quantity(10).build().toBeerDTO();
+    Beer beer = beerMapper.toModel(beerDTO);
+    StockLedger.StockEntry entry = mock(StockLedger.StockEntry.class);
+
+    // when
+    when(beerRepository.findById(beerDTO.getId())).thenReturn(Optional.of(beer));
+    when(stockLedger.find(beerDTO.getId())).thenReturn(entry);
+    when(entry.getQuantity()).thenReturn(15);
+    when(locationStockRepository.findByBeerIdOrderByLocationAsc(beerDTO.getId()))
+        .thenReturn(Arrays.asList(new LocationStock(1L, beer, "warehouse-1", 7)));
+
+    // then
+    BeerStockDTO beerStockDTO = locationStockService.findStock(beerDTO.getId());
+
+    assertThat(beerStockDTO.getUnassigned(), is(equalTo(15)));
+    assertThat(beerStockDTO.getAvailable(), is(equalTo(15)));
+    assertThat(beerStockDTO.getTotal(), is(equalTo(22L)));
+
+  }
+
+  @Test
+  void whenTheLedgerIsEnabledThenLocationChangesAreRefused() {
+
+    // given
+    BeerDTO beerDTO = BeerDTOBuilder.builder().build().toBeerDTO();
+
+    // when
+    when(stockLedger.isEnabled()).thenReturn(true);
+
+    // then
+    assertThrows(LocationStockUnavailableException.class,
+        () -> locationStockService.increment(beerDTO.getId(), LOCATION, 1));
+    assertThrows(LocationStockUnavailableException.class,
+        () -> locationStockService.decrement(beerDTO.getId(), LOCATION, 1));
+    verifyNoInteractions(beerRepository, locationStockRepository);
+
+  }
+
+}
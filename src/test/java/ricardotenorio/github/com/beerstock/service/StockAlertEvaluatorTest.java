@@ -0,0 +1,59 @@
+package ricardotenorio.github.com.beerstock.service;
+
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.Mock;
+import org.mockito.junit.jupiter.MockitoExtension;
+import ricardotenorio.github.com.beerstock.builder.BeerDTOBuilder;
+import ricardotenorio.github.com.beerstock.dto.BeerDTO;
+import ricardotenorio.github.com.beerstock.enums.StockEventType;
+
+import static org.mockito.Mockito.*;
+
+@ExtendWith(MockitoExtension.class)
+public class StockAlertEvaluatorTest {
+
+  @Mock
+  private StockEventPublisher stockEventPublisher;
+
+  private StockAlertEvaluator stockAlertEvaluator;
+
+  @BeforeEach
+  void setup() {
+    stockAlertEvaluator = new StockAlertEvaluator(stockEventPublisher, 0.9);
+  }
+
+  @Test
+  void whenQuantityDropsToReorderLevelThenLowStockFiresOnce() {
+
+    // given
+    BeerDTO crossedBeerDTO = BeerDTOBuilder.builder().quantity(5).reorderLevel(5).build().toBeerDTO();
+    BeerDTO stillLowBeerDTO = BeerDTOBuilder.builder().quantity(4).reorderLevel(5).build().toBeerDTO();
+
+    // when
+    stockAlertEvaluator.evaluate(crossedBeerDTO, -3);
+    stockAlertEvaluator.evaluate(stillLowBeerDTO, -1);
+
+    // then
+    verify(stockEventPublisher, times(1)).publish(StockEventType.LOW_STOCK, crossedBeerDTO);
+    verify(stockEventPublisher, never()).publish(StockEventType.LOW_STOCK, stillLowBeerDTO);
+
+  }
+
+  @Test
+  void whenQuantityReachesNearCapacityThenNearCapacityFires() {
+
+    // given
+    BeerDTO beerDTO = BeerDTOBuilder.builder().max(50).quantity(45).build().toBeerDTO();
+
+    // when
+    stockAlertEvaluator.evaluate(beerDTO, 10);
+
+    // then
+    verify(stockEventPublisher, times(1)).publish(StockEventType.NEAR_CAPACITY, beerDTO);
+    verify(stockEventPublisher, never()).publish(StockEventType.LOW_STOCK, beerDTO);
+
+  }
+
+}
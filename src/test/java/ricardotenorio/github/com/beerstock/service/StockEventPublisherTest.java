@@ -0,0 +1,97 @@
+package ricardotenorio.github.com.beerstock.service;
+
+import org.junit.jupiter.api.Test;
+import org.springframework.web.servlet.mvc.method.annotation.SseEmitter;
+import ricardotenorio.github.com.beerstock.builder.BeerDTOBuilder;
+import ricardotenorio.github.com.beerstock.dto.BeerDTO;
+import ricardotenorio.github.com.beerstock.enums.StockEventType;
+
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.List;
+
+import static org.hamcrest.MatcherAssert.assertThat;
+import static org.hamcrest.Matchers.equalTo;
+import static org.hamcrest.Matchers.is;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+
+public class StockEventPublisherTest {
+
+  @Test
+  void whenSubscriberBufferOverflowsThenSubscriberIsDisconnected() {
+
+    // given
+    List<Runnable> pendingDrains = new ArrayList<>();
+    StockEventPublisher stockEventPublisher = new StockEventPublisher(pendingDrains::add, 2, 1000);
+    BeerDTO beerDTO = BeerDTOBuilder.builder().build().toBeerDTO();
+
+    // when
+    stockEventPublisher.subscribe();
+    stockEventPublisher.publish(StockEventType.STOCK_CHANGED, beerDTO);
+    stockEventPublisher.publish(StockEventType.STOCK_CHANGED, beerDTO);
+    stockEventPublisher.publish(StockEventType.STOCK_CHANGED, beerDTO);
+
+    // then
+    assertThat(stockEventPublisher.subscriberCount(), is(equalTo(0)));
+    assertThat(pendingDrains.size(), is(equalTo(1)));
+
+  }
+
+  @Test
+  void whenSubscriberIsDisconnectedThenItsOwnDrainTaskCompletesIt() throws IOException {
+
+    // given
+    List<Runnable> pendingDrains = new ArrayList<>();
+    StockEventPublisher stockEventPublisher = new StockEventPublisher(pendingDrains::add, 1, 1000);
+    BeerDTO beerDTO = BeerDTOBuilder.builder().build().toBeerDTO();
+    SseEmitter emitter = stockEventPublisher.subscribe();
+
+    // when
+    stockEventPublisher.publish(StockEventType.STOCK_CHANGED, beerDTO);
+    stockEventPublisher.publish(StockEventType.STOCK_CHANGED, beerDTO);
+
+    // then
+    // the publisher never completes the emitter, since that waits for a blocked send
+    emitter.send(SseEmitter.event().comment("still open"));
+    pendingDrains.forEach(Runnable::run);
+    assertThrows(IllegalStateException.class, () -> emitter.send(SseEmitter.event().comment("closed")));
+
+  }
+
+  @Test
+  void whenSeveralSubscribersListenThenEachIsDrainedByItsOwnTask() {
+
+    // given
+    List<Runnable> pendingDrains = new ArrayList<>();
+    StockEventPublisher stockEventPublisher = new StockEventPublisher(pendingDrains::add, 2, 1000);
+    BeerDTO beerDTO = BeerDTOBuilder.builder().build().toBeerDTO();
+
+    // when
+    stockEventPublisher.subscribe();
+    stockEventPublisher.subscribe();
+    stockEventPublisher.publish(StockEventType.STOCK_CHANGED, beerDTO);
+
+    // then
+    assertThat(pendingDrains.size(), is(equalTo(2)));
+
+  }
+
+  @Test
+  void whenSubscriberKeepsUpThenItStaysConnected() {
+
+    // given
+    StockEventPublisher stockEventPublisher = new StockEventPublisher(Runnable::run, 2, 1000);
+    BeerDTO beerDTO = BeerDTOBuilder.builder().build().toBeerDTO();
+
+    // when
+    stockEventPublisher.subscribe();
+    for (int i = 0; i < 10; i++) {
+      stockEventPublisher.publish(StockEventType.STOCK_CHANGED, beerDTO);
+    }
+
+    // then
+    assertThat(stockEventPublisher.subscriberCount(), is(equalTo(1)));
+
+  }
+
+}
@@ -0,0 +1,133 @@
+package ricardotenorio.github.com.beerstock.service;
+
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.ArgumentCaptor;
+import org.mockito.ArgumentMatchers;
+import org.mockito.Mock;
+import org.mockito.junit.jupiter.MockitoExtension;
+import ricardotenorio.github.com.beerstock.entity.StockJournalEntry;
+import ricardotenorio.github.com.beerstock.entity.StockSnapshot;
+import ricardotenorio.github.com.beerstock.repository.StockJournalRepository;
+import ricardotenorio.github.com.beerstock.repository.StockSnapshotRepository;
+
+import java.time.Instant;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+import static org.hamcrest.MatcherAssert.assertThat;
+import static org.hamcrest.Matchers.*;
+import static org.mockito.Mockito.*;
+
+@ExtendWith(MockitoExtension.class)
+public class StockJournalTest {
+
+  @Mock
+  private StockJournalRepository stockJournalRepository;
+
+  @Mock
+  private StockSnapshotRepository stockSnapshotRepository;
+
+  private StockJournal stockJournal;
+
+  @BeforeEach
+  void setup() {
+    stockJournal = new StockJournal(stockJournalRepository, stockSnapshotRepository);
+  }
+
+  @Test
+  @SuppressWarnings("unchecked")
+  void whenMovementsAreRecordedThenTheyAreWrittenInOneBatch() {
+
+    // given
+    ArgumentCaptor<List<StockJournalEntry>> entries = ArgumentCaptor.forClass(List.class);
+    Map<Long, Integer> deltas = new HashMap<>();
+    deltas.put(1L, 5);
+    deltas.put(2L, 0);
+    deltas.put(3L, -3);
+
+    // when
+    stockJournal.record(deltas);
+
+    // then
+    verify(stockJournalRepository, times(1)).saveAll(entries.capture());
+    assertThat(entries.getValue(), hasSize(2));
+    assertThat(entries.getValue().get(1).getDelta(), is(equalTo(-3)));
+    assertThat(entries.getValue().get(1).getGeneration(), is(nullValue()));
+
+  }
+
+  @Test
+  void whenAZeroMovementIsRecordedThenNothingIsWritten() {
+
+    // when
+    stockJournal.record(1L, 0);
+
+    // then
+    verify(stockJournalRepository, never()).saveAll(ArgumentMatchers.anyList());
+
+  }
+
+  @Test
+  void whenReplayIsCalledThenUnsnapshottedEntriesAreAddedToLatestSnapshot() {
+
+    // given
+    StockSnapshot snapshot = new StockSnapshot(1L, 3L, 1L, 10, Instant.now());
+
+    // when
+    when(stockJournalRepository.findLastGeneration()).thenReturn(3L);
+    when(stockSnapshotRepository.findByGeneration(3L)).thenReturn(Collections.singletonList(snapshot));
+    when(stockJournalRepository.sumUnsnapshottedDeltas())
+        .thenReturn(Arrays.asList(new Object[] {1L, -4L}, new Object[] {2L, 7L}));
+
+    // then
+    Map<Long, Integer> quantities = stockJournal.replay();
+
+    assertThat(quantities.get(1L), is(equalTo(6)));
+    assertThat(quantities.get(2L), is(equalTo(7)));
+
+  }
+
+  @Test
+  @SuppressWarnings("unchecked")
+  void whenSnapshotIsTakenThenItCoversTheEntriesStampedWithItsGeneration() {
+
+    // given
+    ArgumentCaptor<List<StockSnapshot>> snapshots = ArgumentCaptor.forClass(List.class);
+
+    // when
+    when(stockJournalRepository.findLastGeneration()).thenReturn(0L);
+    when(stockJournalRepository.markGeneration(1L)).thenReturn(2);
+    when(stockJournalRepository.sumDeltasByGeneration(1L))
+        .thenReturn(Arrays.asList(new Object[] {1L, 5L}, new Object[] {2L, 0L}));
+
+    // then
+    stockJournal.snapshot();
+
+    verify(stockSnapshotRepository, times(1)).saveAll(snapshots.capture());
+    verify(stockSnapshotRepository, times(1)).deleteOlderThan(1L);
+    assertThat(snapshots.getValue(), hasSize(1));
+    assertThat(snapshots.getValue().get(0).getGeneration(), is(equalTo(1L)));
+    assertThat(snapshots.getValue().get(0).getQuantity(), is(equalTo(5)));
+
+  }
+
+  @Test
+  void whenNoEntryIsLeftToFoldThenNoSnapshotIsTaken() {
+
+    // when
+    when(stockJournalRepository.findLastGeneration()).thenReturn(4L);
+    when(stockJournalRepository.markGeneration(5L)).thenReturn(0);
+
+    // then
+    stockJournal.snapshot();
+
+    verify(stockSnapshotRepository, never()).saveAll(ArgumentMatchers.anyList());
+
+  }
+
+}
@@ -0,0 +1,78 @@
+package ricardotenorio.github.com.beerstock.service;
+
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.Mock;
+import org.mockito.junit.jupiter.MockitoExtension;
+import ricardotenorio.github.com.beerstock.repository.BeerRepository;
+import ricardotenorio.github.com.beerstock.repository.LocationStockRepository;
+
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.Map;
+
+import static org.hamcrest.MatcherAssert.assertThat;
+import static org.hamcrest.Matchers.*;
+import static org.mockito.Mockito.*;
+
+@ExtendWith(MockitoExtension.class)
+public class StockJournalVerifierTest {
+
+  @Mock
+  private StockJournal stockJournal;
+
+  @Mock
+  private BeerRepository beerRepository;
+
+  @Mock
+  private LocationStockRepository locationStockRepository;
+
+  private StockJournalVerifier stockJournalVerifier;
+
+  @BeforeEach
+  void setup() {
+    stockJournalVerifier = new StockJournalVerifier(stockJournal, beerRepository, locationStockRepository, true);
+  }
+
+  @Test
+  void whenTheJournalReplaysTheStoredStockThenNoBeerMismatches() {
+
+    // given
+    Map<Long, Integer> replayed = new HashMap<>();
+    replayed.put(1L, 10);
+    replayed.put(2L, 12);
+
+    // when
+    when(stockJournal.replay()).thenReturn(replayed);
+    when(beerRepository.findAllQuantities())
+        .thenReturn(Arrays.asList(new Object[] {1L, 10}, new Object[] {2L, 5}));
+    when(locationStockRepository.sumQuantityByBeer())
+        .thenReturn(Collections.singletonList(new Object[] {2L, 7L}));
+
+    // then
+    assertThat(stockJournalVerifier.verify(), is(empty()));
+
+  }
+
+  @Test
+  void whenAChangeBypassedTheJournalThenItsBeerMismatches() {
+
+    // given
+    Map<Long, Integer> replayed = new HashMap<>();
+    replayed.put(1L, 10);
+    replayed.put(3L, 4);
+
+    // when
+    when(stockJournal.replay()).thenReturn(replayed);
+    when(beerRepository.findAllQuantities())
+        .thenReturn(Arrays.asList(new Object[] {1L, 10}, new Object[] {2L, 5}));
+    when(locationStockRepository.sumQuantityByBeer()).thenReturn(Collections.emptyList());
+
+    // then
+    assertThat(stockJournalVerifier.verify(), containsInAnyOrder(2L, 3L));
+
+  }
+
+}
@@ -0,0 +1,89 @@
+package ricardotenorio.github.com.beerstock.service;
+
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.orm.jpa.DataJpaTest;
+import org.springframework.context.annotation.Import;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.annotation.Propagation;
+import org.springframework.transaction.annotation.Transactional;
+import org.springframework.transaction.support.TransactionTemplate;
+import ricardotenorio.github.com.beerstock.builder.BeerDTOBuilder;
+import ricardotenorio.github.com.beerstock.entity.Beer;
+import ricardotenorio.github.com.beerstock.exception.BeerNotFoundException;
+import ricardotenorio.github.com.beerstock.exception.BeerStockExceededException;
+import ricardotenorio.github.com.beerstock.mapper.BeerMapper;
+import ricardotenorio.github.com.beerstock.repository.BeerRepository;
+import ricardotenorio.github.com.beerstock.repository.LocationStockRepository;
+import ricardotenorio.github.com.beerstock.repository.StockJournalRepository;
+import ricardotenorio.github.com.beerstock.repository.StockMovementRepository;
+import ricardotenorio.github.com.beerstock.repository.StockSnapshotRepository;
+
+import static org.hamcrest.MatcherAssert.assertThat;
+import static org.hamcrest.Matchers.equalTo;
+import static org.hamcrest.Matchers.is;
+
+/**
+ * Runs the ledger flush against a real transaction manager, which the mocked
+ * one in {@link StockLedgerTest} cannot stand in for.
+ */
+@DataJpaTest
+@Import(StockMovementRepository.class)
+@Transactional(propagation = Propagation.NOT_SUPPORTED)
+public class StockLedgerFlushTest {
+
+  @Autowired
+  private BeerRepository beerRepository;
+
+  @Autowired
+  private LocationStockRepository locationStockRepository;
+
+  @Autowired
+  private StockMovementRepository stockMovementRepository;
+
+  @Autowired
+  private StockJournalRepository stockJournalRepository;
+
+  @Autowired
+  private StockSnapshotRepository stockSnapshotRepository;
+
+  @Autowired
+  private PlatformTransactionManager transactionManager;
+
+  private BeerMapper beerMapper = BeerMapper.INSTANCE;
+
+  @AfterEach
+  void cleanup() {
+    stockJournalRepository.deleteAll();
+    beerRepository.deleteAll();
+  }
+
+  @Test
+  void whenTheThresholdFlushRunsInsideARolledBackTransactionThenTheFlushIsKept() {
+
+    // given
+    Beer beer = beerRepository.save(beerMapper.toModel(
+        BeerDTOBuilder.builder().id(null).version(null).quantity(10).build().toBeerDTO()));
+    StockLedger stockLedger = new StockLedger(beerRepository, locationStockRepository, stockMovementRepository,
+        new StockJournal(stockJournalRepository, stockSnapshotRepository), transactionManager,
+        new BeerCache(100, 60000), new CatalogVersion(), true, 1);
+    TransactionTemplate requestTransaction = new TransactionTemplate(transactionManager);
+
+    // when
+    requestTransaction.executeWithoutResult(status -> {
+      try {
+        stockLedger.apply(beer.getId(), 5);
+      } catch (BeerNotFoundException | BeerStockExceededException e) {
+        throw new IllegalStateException(e);
+      }
+      status.setRollbackOnly();
+    });
+
+    // then
+    assertThat(beerRepository.findById(beer.getId()).get().getQuantity(), is(equalTo(15)));
+    assertThat(stockJournalRepository.count(), is(equalTo(1L)));
+
+  }
+
+}
@@ -0,0 +1,195 @@
+package ricardotenorio.github.com.beerstock.service;
+
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.ArgumentMatchers;
+import org.mockito.Mock;
+import org.mockito.junit.jupiter.MockitoExtension;
+import org.springframework.transaction.PlatformTransactionManager;
+import ricardotenorio.github.com.beerstock.builder.BeerDTOBuilder;
+import ricardotenorio.github.com.beerstock.dto.BeerDTO;
+import ricardotenorio.github.com.beerstock.dto.StockMovementDTO;
+import ricardotenorio.github.com.beerstock.entity.Beer;
+import ricardotenorio.github.com.beerstock.exception.BeerNotFoundException;
+import ricardotenorio.github.com.beerstock.exception.BeerStockExceededException;
+import ricardotenorio.github.com.beerstock.mapper.BeerMapper;
+import ricardotenorio.github.com.beerstock.repository.BeerRepository;
+import ricardotenorio.github.com.beerstock.repository.LocationStockRepository;
+import ricardotenorio.github.com.beerstock.repository.StockMovementRepository;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.Optional;
+import java.util.concurrent.Callable;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static org.hamcrest.MatcherAssert.assertThat;
+import static org.hamcrest.Matchers.equalTo;
+import static org.hamcrest.Matchers.is;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.mockito.Mockito.*;
+
+@ExtendWith(MockitoExtension.class)
+public class StockLedgerTest {
+
+  private static final long INVALID_BEER_ID = 2L;
+
+  @Mock
+  private BeerRepository beerRepository;
+
+  @Mock
+  private LocationStockRepository locationStockRepository;
+
+  @Mock
+  private StockMovementRepository stockMovementRepository;
+
+  @Mock
+  private StockJournal stockJournal;
+
+  @Mock
+  private PlatformTransactionManager transactionManager;
+
+  private BeerMapper beerMapper = BeerMapper.INSTANCE;
+
+  private StockLedger stockLedger;
+
+  @BeforeEach
+  void setup() {
+    stockLedger = new StockLedger(beerRepository, locationStockRepository, stockMovementRepository, stockJournal,
+        transactionManager, new BeerCache(100, 60000), new CatalogVersion(), true, 1000);
+  }
+
+  @Test
+  void whenConcurrentDecrementsExceedStockThenOnlyAvailableUnitsAreTaken() throws Exception {
+
+    // given
+    BeerDTO beerDTO = BeerDTOBuilder.builder().quantity(10).build().toBeerDTO();
+    Beer beer = beerMapper.toModel(beerDTO);
+    ExecutorService executor = Executors.newFixedThreadPool(4);
+    AtomicInteger rejected = new AtomicInteger();
+
+    // when
+    when(beerRepository.findById(beerDTO.getId())).thenReturn(Optional.of(beer));
+
+    List<Callable<Void>> decrements = new ArrayList<>();
+    for (int i = 0; i < 20; i++) {
+      decrements.add(() -> {
+        try {
+          stockLedger.apply(beerDTO.getId(), -1);
+        } catch (BeerStockExceededException e) {
+          rejected.incrementAndGet();
+        }
+        return null;
+      });
+    }
+    for (Future<Void> future : executor.invokeAll(decrements)) {
+      future.get();
+    }
+    executor.shutdown();
+
+    // then
+    assertThat(rejected.get(), is(equalTo(10)));
+    assertThat(stockLedger.apply(beerDTO.getId(), 0).getQuantity(), is(equalTo(0)));
+
+  }
+
+  @Test
+  void whenStockIsHeldAtLocationsOrReservedThenTheLedgerStaysWithinTheRemainingBounds() throws Exception {
+
+    // given
+    BeerDTO beerDTO = BeerDTOBuilder.builder().max(50).quantity(10).build().toBeerDTO();
+    Beer beer = beerMapper.toModel(beerDTO);
+    beer.setReserved(4);
+
+    // when
+    when(beerRepository.findById(beerDTO.getId())).thenReturn(Optional.of(beer));
+    when(locationStockRepository.sumQuantityByBeerId(beerDTO.getId())).thenReturn(35L);
+
+    // then
+    assertThat(stockLedger.apply(beerDTO.getId(), 5).getQuantity(), is(equalTo(15)));
+    assertThrows(BeerStockExceededException.class, () -> stockLedger.apply(beerDTO.getId(), 1));
+    assertThat(stockLedger.apply(beerDTO.getId(), -11).getQuantity(), is(equalTo(4)));
+    assertThrows(BeerStockExceededException.class, () -> stockLedger.apply(beerDTO.getId(), -1));
+
+  }
+
+  @Test
+  void whenLedgerHoldsTheBeerThenReadsCarryTheLedgerQuantity() {
+
+    // given
+    BeerDTO beerDTO = BeerDTOBuilder.builder().quantity(10).build().toBeerDTO();
+    Beer beer = beerMapper.toModel(beerDTO);
+
+    // when
+    when(beerRepository.findById(beerDTO.getId())).thenReturn(Optional.of(beer));
+    stockLedger.apply(beerDTO.getId(), 5);
+    BeerDTO currentBeerDTO = stockLedger.current(beerDTO);
+
+    // then
+    assertThat(currentBeerDTO.getQuantity(), is(equalTo(15)));
+    assertThat(beerDTO.getQuantity(), is(equalTo(10)));
+
+  }
+
+  @Test
+  void whenFlushIsCalledThenDeltasAreCoalescedIntoOneUpdate() throws Exception {
+
+    // given
+    BeerDTO beerDTO = BeerDTOBuilder.builder().build().toBeerDTO();
+    Beer beer = beerMapper.toModel(beerDTO);
+
+    // when
+    when(beerRepository.findById(beerDTO.getId())).thenReturn(Optional.of(beer));
+    when(stockMovementRepository.addQuantities(ArgumentMatchers.anyList())).thenReturn(new int[] {1});
+    stockLedger.apply(beerDTO.getId(), 5);
+    stockLedger.apply(beerDTO.getId(), -2);
+
+    // then
+    stockLedger.flush();
+    stockLedger.flush();
+
+    verify(stockMovementRepository, times(1))
+        .addQuantities(Collections.singletonList(new StockMovementDTO(beerDTO.getId(), 3)));
+    verify(stockJournal, times(1)).record(Collections.singletonMap(beerDTO.getId(), 3));
+
+  }
+
+  @Test
+  void whenUnflushedChangesReachTheLimitThenTheyAreFlushedInline() throws Exception {
+
+    // given
+    BeerDTO beerDTO = BeerDTOBuilder.builder().build().toBeerDTO();
+    Beer beer = beerMapper.toModel(beerDTO);
+    stockLedger = new StockLedger(beerRepository, locationStockRepository, stockMovementRepository, stockJournal,
+        transactionManager, new BeerCache(100, 60000), new CatalogVersion(), true, 2);
+
+    // when
+    when(beerRepository.findById(beerDTO.getId())).thenReturn(Optional.of(beer));
+    when(stockMovementRepository.addQuantities(ArgumentMatchers.anyList())).thenReturn(new int[] {1});
+    stockLedger.apply(beerDTO.getId(), 1);
+    verify(stockMovementRepository, never()).addQuantities(ArgumentMatchers.anyList());
+    stockLedger.apply(beerDTO.getId(), 1);
+
+    // then
+    verify(stockMovementRepository, times(1))
+        .addQuantities(Collections.singletonList(new StockMovementDTO(beerDTO.getId(), 2)));
+
+  }
+
+  @Test
+  void whenUnknownIdIsGivenThenThrowAnException() {
+
+    // when
+    when(beerRepository.findById(INVALID_BEER_ID)).thenReturn(Optional.empty());
+
+    // then
+    assertThrows(BeerNotFoundException.class, () -> stockLedger.apply(INVALID_BEER_ID, 1));
+
+  }
+
+}
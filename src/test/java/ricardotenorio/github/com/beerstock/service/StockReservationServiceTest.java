@@ -0,0 +1,195 @@
+package ricardotenorio.github.com.beerstock.service;
+
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.ArgumentMatchers;
+import org.mockito.Mock;
+import org.mockito.junit.jupiter.MockitoExtension;
+import ricardotenorio.github.com.beerstock.builder.BeerDTOBuilder;
+import ricardotenorio.github.com.beerstock.dto.BeerDTO;
+import ricardotenorio.github.com.beerstock.dto.StockReservationDTO;
+import ricardotenorio.github.com.beerstock.entity.Beer;
+import ricardotenorio.github.com.beerstock.entity.StockReservation;
+import ricardotenorio.github.com.beerstock.enums.BeerType;
+import ricardotenorio.github.com.beerstock.exception.BeerStockExceededException;
+import ricardotenorio.github.com.beerstock.exception.StockReservationNotFoundException;
+import ricardotenorio.github.com.beerstock.exception.StockReservationUnavailableException;
+import ricardotenorio.github.com.beerstock.mapper.BeerMapper;
+import ricardotenorio.github.com.beerstock.repository.BeerRepository;
+import ricardotenorio.github.com.beerstock.repository.LocationStockRepository;
+import ricardotenorio.github.com.beerstock.repository.StockReservationRepository;
+
+import java.time.Instant;
+import java.util.Arrays;
+import java.util.Optional;
+
+import static org.hamcrest.MatcherAssert.assertThat;
+import static org.hamcrest.Matchers.*;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.mockito.Mockito.*;
+
+@ExtendWith(MockitoExtension.class)
+public class StockReservationServiceTest {
+
+  private static final long RESERVATION_ID = 7L;
+
+  @Mock
+  private BeerRepository beerRepository;
+
+  @Mock
+  private StockReservationRepository stockReservationRepository;
+
+  @Mock
+  private LocationStockRepository locationStockRepository;
+
+  @Mock
+  private StockEventPublisher stockEventPublisher;
+
+  @Mock
+  private StockJournal stockJournal;
+
+  private BeerMapper beerMapper = BeerMapper.INSTANCE;
+
+  private StockTotals stockTotals;
+
+  private StockReservationService stockReservationService;
+
+  @BeforeEach
+  void setup() {
+    BeerCache beerCache = new BeerCache(100, 60000);
+    CatalogVersion catalogVersion = new CatalogVersion();
+    stockTotals = new StockTotals(beerRepository, locationStockRepository, new SimpleMeterRegistry());
+    stockReservationService = new StockReservationService(beerRepository, stockReservationRepository,
+        new StockLedger(beerRepository, locationStockRepository, null, null, null, beerCache, catalogVersion,
+            false, 1000), beerCache,
+        catalogVersion, stockEventPublisher, new StockAlertEvaluator(stockEventPublisher, 0.9), stockTotals,
+        stockJournal, 300);
+  }
+
+  @Test
+  void whenStockIsAvailableThenAReservationIsCreated() throws Exception {
+
+    // given
+    BeerDTO beerDTO = BeerDTOBuilder.builder().build().toBeerDTO();
+
+    // when
+    when(beerRepository.reserveWithinStock(beerDTO.getId(), 5)).thenReturn(1);
+    when(stockReservationRepository.save(ArgumentMatchers.any(StockReservation.class)))
+        .thenAnswer(invocation -> {
+          StockReservation reservation = invocation.getArgument(0);
+          reservation.setId(RESERVATION_ID);
+          return reservation;
+        });
+
+    // then
+    StockReservationDTO reservationDTO = stockReservationService.reserve(beerDTO.getId(), 5, 60);
+
+    assertThat(reservationDTO.getId(), is(equalTo(RESERVATION_ID)));
+    assertThat(reservationDTO.getQuantity(), is(equalTo(5)));
+    assertThat(reservationDTO.getExpiresAt(), is(greaterThan(Instant.now())));
+
+  }
+
+  @Test
+  void whenUnreservedStockIsNotEnoughThenThrowAnException() {
+
+    // given
+    BeerDTO beerDTO = BeerDTOBuilder.builder().build().toBeerDTO();
+
+    // when
+    when(beerRepository.reserveWithinStock(beerDTO.getId(), 50)).thenReturn(0);
+    when(beerRepository.existsById(beerDTO.getId())).thenReturn(true);
+
+    // then
+    assertThrows(BeerStockExceededException.class,
+        () -> stockReservationService.reserve(beerDTO.getId(), 50, null));
+    verify(stockReservationRepository, never()).save(ArgumentMatchers.any(StockReservation.class));
+
+  }
+
+  @Test
+  void whenStockLedgerIsEnabledThenReservationIsRefused() {
+
+    // given
+    BeerDTO beerDTO = BeerDTOBuilder.builder().build().toBeerDTO();
+    BeerCache beerCache = new BeerCache(100, 60000);
+    CatalogVersion catalogVersion = new CatalogVersion();
+    StockLedger stockLedger = new StockLedger(beerRepository, locationStockRepository, null, null, null, beerCache,
+        catalogVersion, true, 1000);
+    StockReservationService ledgerReservationService = new StockReservationService(beerRepository,
+        stockReservationRepository, stockLedger, beerCache, catalogVersion, stockEventPublisher,
+        new StockAlertEvaluator(stockEventPublisher, 0.9), stockTotals, stockJournal, 300);
+
+    // then
+    assertThrows(StockReservationUnavailableException.class,
+        () -> ledgerReservationService.reserve(beerDTO.getId(), 5, null));
+    verify(beerRepository, never()).reserveWithinStock(beerDTO.getId(), 5);
+
+  }
+
+  @Test
+  void whenReservationIsCommittedThenStockIsDecremented() throws Exception {
+
+    // given
+    BeerDTO beerDTO = BeerDTOBuilder.builder().build().toBeerDTO();
+    beerDTO.setQuantity(beerDTO.getQuantity() - 5);
+    Beer committedBeer = beerMapper.toModel(beerDTO);
+    StockReservation reservation = new StockReservation(RESERVATION_ID, beerDTO.getId(), 5,
+        Instant.now().plusSeconds(60));
+
+    // when
+    when(stockReservationRepository.findById(RESERVATION_ID)).thenReturn(Optional.of(reservation));
+    when(stockReservationRepository.deleteReservation(RESERVATION_ID)).thenReturn(1);
+    when(beerRepository.commitReserved(beerDTO.getId(), 5)).thenReturn(1);
+    when(beerRepository.findById(beerDTO.getId())).thenReturn(Optional.of(committedBeer));
+
+    // then
+    BeerDTO committedBeerDTO = stockReservationService.commit(RESERVATION_ID);
+
+    assertThat(committedBeerDTO.getQuantity(), is(equalTo(beerDTO.getQuantity())));
+    assertThat(stockTotals.get(BeerType.LAGER), is(equalTo(-5L)));
+
+  }
+
+  @Test
+  void whenExpiredReservationIsCommittedThenThrowAnException() {
+
+    // given
+    StockReservation reservation = new StockReservation(RESERVATION_ID, 1L, 5,
+        Instant.now().minusSeconds(1));
+
+    // when
+    when(stockReservationRepository.findById(RESERVATION_ID)).thenReturn(Optional.of(reservation));
+
+    // then
+    assertThrows(StockReservationNotFoundException.class,
+        () -> stockReservationService.commit(RESERVATION_ID));
+    verify(beerRepository, never()).commitReserved(1L, 5);
+
+  }
+
+  @Test
+  void whenSweepRunsThenOnlyClaimedReservationsAreReleased() {
+
+    // given
+    StockReservation expired = new StockReservation(1L, 1L, 5, Instant.now().minusSeconds(10));
+    StockReservation alreadyCommitted = new StockReservation(2L, 1L, 3, Instant.now().minusSeconds(5));
+
+    // when
+    when(stockReservationRepository.findByExpiresAtLessThanEqualOrderByExpiresAtAsc(
+        ArgumentMatchers.any(Instant.class), ArgumentMatchers.any()))
+        .thenReturn(Arrays.asList(expired, alreadyCommitted));
+    when(stockReservationRepository.deleteReservation(1L)).thenReturn(1);
+    when(stockReservationRepository.deleteReservation(2L)).thenReturn(0);
+
+    // then
+    stockReservationService.releaseExpired();
+
+    verify(beerRepository, times(1)).releaseReserved(1L, 5);
+    verify(beerRepository, never()).releaseReserved(1L, 3);
+
+  }
+
+}
@@ -0,0 +1,131 @@
+package ricardotenorio.github.com.beerstock.service;
+
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.ArgumentMatchers;
+import org.mockito.Mock;
+import org.mockito.junit.jupiter.MockitoExtension;
+import ricardotenorio.github.com.beerstock.builder.BeerDTOBuilder;
+import ricardotenorio.github.com.beerstock.dto.BeerDTO;
+import ricardotenorio.github.com.beerstock.dto.StockMovementDTO;
+import ricardotenorio.github.com.beerstock.dto.StockMovementResultDTO;
+import ricardotenorio.github.com.beerstock.enums.StockMovementStatus;
+import ricardotenorio.github.com.beerstock.exception.BeerStockExceededException;
+import ricardotenorio.github.com.beerstock.exception.StockQueueClosedException;
+
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.List;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.TimeUnit;
+
+import static org.hamcrest.MatcherAssert.assertThat;
+import static org.hamcrest.Matchers.equalTo;
+import static org.hamcrest.Matchers.instanceOf;
+import static org.hamcrest.Matchers.is;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.mockito.Mockito.*;
+
+@ExtendWith(MockitoExtension.class)
+public class StockWriteQueuesTest {
+
+  @Mock
+  private BeerService beerService;
+
+  private MeterRegistry meterRegistry;
+
+  private StockWriteQueues stockWriteQueues;
+
+  @BeforeEach
+  void setup() {
+    meterRegistry = new SimpleMeterRegistry();
+    stockWriteQueues = new StockWriteQueues(beerService, meterRegistry, true, 1, 100, 256);
+  }
+
+  @AfterEach
+  void tearDown() throws InterruptedException {
+    stockWriteQueues.stop();
+  }
+
+  @Test
+  void whenChangesAreBatchedThenEachGetsTheQuantityRightAfterIt() throws Exception {
+
+    // given
+    // read after the batch committed, by then another write path moved the quantity
+    BeerDTO beerDTO = BeerDTOBuilder.builder().quantity(40).build().toBeerDTO();
+    CompletableFuture<BeerDTO> increment = new CompletableFuture<>();
+    CompletableFuture<BeerDTO> decrement = new CompletableFuture<>();
+    CompletableFuture<BeerDTO> rejected = new CompletableFuture<>();
+
+    // when
+    when(beerService.applyStockMovements(ArgumentMatchers.anyList())).thenReturn(Arrays.asList(
+        new StockMovementResultDTO(beerDTO.getId(), 5, StockMovementStatus.APPLIED, 15),
+        new StockMovementResultDTO(beerDTO.getId(), -2, StockMovementStatus.APPLIED, 13),
+        new StockMovementResultDTO(beerDTO.getId(), 100, StockMovementStatus.STOCK_EXCEEDED, null)));
+    when(beerService.currentStock(Collections.singleton(beerDTO.getId())))
+        .thenReturn(Collections.singletonList(beerDTO));
+
+    stockWriteQueues.apply(Arrays.asList(
+        new StockWriteQueues.PendingChange(beerDTO.getId(), 5, increment),
+        new StockWriteQueues.PendingChange(beerDTO.getId(), -2, decrement),
+        new StockWriteQueues.PendingChange(beerDTO.getId(), 100, rejected)));
+
+    // then
+    assertThat(increment.get().getQuantity(), is(equalTo(15)));
+    assertThat(decrement.get().getQuantity(), is(equalTo(13)));
+    ExecutionException exception = assertThrows(ExecutionException.class, rejected::get);
+    assertThat(exception.getCause(), is(instanceOf(BeerStockExceededException.class)));
+
+  }
+
+  @Test
+  void whenAChangeIsSubmittedThenAWriterAppliesIt() throws Exception {
+
+    // given
+    BeerDTO beerDTO = BeerDTOBuilder.builder().build().toBeerDTO();
+    List<StockMovementDTO> movements = Collections.singletonList(new StockMovementDTO(beerDTO.getId(), 1));
+
+    // when
+    when(beerService.applyStockMovements(movements)).thenReturn(Collections.singletonList(
+        new StockMovementResultDTO(beerDTO.getId(), 1, StockMovementStatus.APPLIED, beerDTO.getQuantity() + 1)));
+    when(beerService.currentStock(Collections.singleton(beerDTO.getId())))
+        .thenReturn(Collections.singletonList(beerDTO));
+    stockWriteQueues.start();
+
+    // then
+    BeerDTO updatedBeerDTO = stockWriteQueues.submit(beerDTO.getId(), 1).get(5, TimeUnit.SECONDS);
+
+    assertThat(updatedBeerDTO.getQuantity(), is(equalTo(beerDTO.getQuantity() + 1)));
+    // the change is timed on the writer thread, which has finished once stopped
+    stockWriteQueues.stop();
+    assertThat(meterRegistry.get(BeerServiceMetrics.OPERATION_TIMER).tag("operation", "increment").timer().count(),
+        is(equalTo(1L)));
+
+  }
+
+  @Test
+  void whenTheWritersHaveStoppedThenSubmissionsAreRejected() throws Exception {
+
+    // given
+    stockWriteQueues.start();
+
+    // when
+    stockWriteQueues.stop();
+    CompletableFuture<BeerDTO> result = stockWriteQueues.submit(1L, 1);
+
+    // then
+    ExecutionException exception = assertThrows(ExecutionException.class,
+        () -> result.get(5, TimeUnit.SECONDS));
+    assertThat(exception.getCause(), is(instanceOf(StockQueueClosedException.class)));
+    verify(beerService, never()).applyStockMovements(ArgumentMatchers.anyList());
+    assertThat(meterRegistry.get(BeerServiceMetrics.ERROR_COUNTER).tag("operation", "increment")
+        .tag("exception", StockQueueClosedException.class.getSimpleName()).counter().count(), is(equalTo(1.0)));
+
+  }
+
+}